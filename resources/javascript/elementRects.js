@@ -0,0 +1,11 @@
+// Reads location and size of several elements at once, relative to the document like WebDriver does.
+// Returns [x, y, width, height] per element.
+var elements = arguments[0], rects = [], rect, i;
+var scrollX = window.pageXOffset || document.documentElement.scrollLeft;
+var scrollY = window.pageYOffset || document.documentElement.scrollTop;
+for (i = 0; i < elements.length; i++) {
+	rect = elements[i].getBoundingClientRect();
+	rects.push([ Math.round(rect.left + scrollX), Math.round(rect.top + scrollY), Math.round(rect.width),
+			Math.round(rect.height) ]);
+}
+return rects;
@@ -0,0 +1,58 @@
+// Reads the state of an element at once. Arguments: element, names of the attributes, names of the CSS properties.
+// The values follow WebDriver: properties of simple type win over attributes, boolean attributes are "true" or null,
+// the rectangle is relative to the document.
+function isDisplayed(element, style) {
+	var node;
+	if (style.visibility === 'hidden' || style.visibility === 'collapse' || style.opacity === '0') {
+		return false;
+	}
+	for (node = element; node && node.nodeType === 1; node = node.parentNode) {
+		if (window.getComputedStyle(node).display === 'none') {
+			return false;
+		}
+	}
+	return element.getClientRects().length > 0;
+}
+// Attributes WebDriver reports as "true" or null, never as "false".
+var BOOLEAN_ATTRIBUTES = [ 'allowfullscreen', 'allowpaymentrequest', 'allowusermedia', 'async', 'autofocus',
+		'autoplay', 'checked', 'compact', 'complete', 'controls', 'declare', 'default', 'defaultchecked',
+		'defaultselected', 'defer', 'disabled', 'ended', 'formnovalidate', 'hidden', 'indeterminate', 'iscontenteditable',
+		'ismap', 'itemscope', 'loop', 'multiple', 'muted', 'nohref', 'nomodule', 'noresize', 'noshade', 'novalidate',
+		'nowrap', 'open', 'paused', 'playsinline', 'pubdate', 'readonly', 'required', 'reversed', 'scoped', 'seamless',
+		'seeking', 'selected', 'truespeed', 'typemustmatch', 'willvalidate' ];
+function attributeOf(element, name) {
+	var value;
+	if (BOOLEAN_ATTRIBUTES.indexOf(name.toLowerCase()) >= 0) {
+		value = element[name];
+		return value === true || (value === undefined && element.hasAttribute(name)) ? 'true' : null;
+	}
+	value = element[name];
+	if (value !== undefined && value !== null && typeof value !== 'object' && typeof value !== 'function') {
+		return String(value);
+	}
+	return element.getAttribute(name);
+}
+var element = arguments[0], attributeNames = arguments[1], styleNames = arguments[2];
+var style = window.getComputedStyle(element);
+var rect = element.getBoundingClientRect();
+var snapshot = {
+	tagName : element.tagName.toLowerCase(),
+	text : (element.innerText !== undefined ? element.innerText : element.textContent || '').replace(/^\s+|\s+$/g, ''),
+	displayed : isDisplayed(element, style),
+	enabled : !element.disabled,
+	selected : !!(element.selected || element.checked),
+	x : Math.round(rect.left + (window.pageXOffset || document.documentElement.scrollLeft)),
+	y : Math.round(rect.top + (window.pageYOffset || document.documentElement.scrollTop)),
+	width : Math.round(rect.width),
+	height : Math.round(rect.height),
+	attributes : {},
+	styles : {}
+};
+var i;
+for (i = 0; i < attributeNames.length; i++) {
+	snapshot.attributes[attributeNames[i]] = attributeOf(element, attributeNames[i]);
+}
+for (i = 0; i < styleNames.length; i++) {
+	snapshot.styles[styleNames[i]] = style.getPropertyValue(styleNames[i]);
+}
+return snapshot;
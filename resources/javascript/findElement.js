@@ -0,0 +1,41 @@
+// Finds the first element matching a locator as translated by BrowserLocator. Returns null if there is none.
+function findElement(strategy, value) {
+	var doc = document;
+	var i, links, linkText;
+	switch (strategy) {
+	case 'id':
+		return doc.getElementById(value);
+	case 'name':
+		return doc.getElementsByName(value)[0] || null;
+	case 'className':
+		return doc.getElementsByClassName ? doc.getElementsByClassName(value)[0] || null
+				: doc.querySelector('.' + value);
+	case 'tagName':
+		return doc.getElementsByTagName(value)[0] || null;
+	case 'css':
+		return doc.querySelector(value);
+	case 'xpath':
+		return doc.evaluate(value, doc, null, 9, null).singleNodeValue;
+	case 'linkText':
+	case 'partialLinkText':
+		links = doc.getElementsByTagName('a');
+		for (i = 0; i < links.length; i++) {
+			linkText = textOf(links[i]);
+			if (strategy === 'linkText' ? linkText === value : linkText.indexOf(value) >= 0) {
+				return links[i];
+			}
+		}
+		return null;
+	default:
+		throw new Error('Unsupported locator strategy ' + strategy);
+	}
+}
+
+// Visible text of the element without leading and trailing white space.
+function textOf(element) {
+	var text = element.innerText;
+	if (text === undefined || text === null) {
+		text = element.textContent || '';
+	}
+	return text.replace(/^\s+|\s+$/g, '');
+}
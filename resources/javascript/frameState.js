@@ -0,0 +1,31 @@
+// Describes what a screenshot of the page would show: the document and its version, the scroll position and the size
+// of the viewport. The version is counted up by a mutation observer and by input events, installed on the first call.
+// Without mutation observer the token is null, so a screenshot is never reused.
+var state = window.__seleniumFrameState;
+var bump;
+if (!state) {
+	state = window.__seleniumFrameState = {
+		id : window.MutationObserver ? String(Math.random()).substring(2) : null,
+		version : 0
+	};
+	bump = function() {
+		state.version++;
+	};
+	if (window.MutationObserver) {
+		new MutationObserver(bump).observe(document, {
+			attributes : true,
+			childList : true,
+			characterData : true,
+			subtree : true
+		});
+	}
+	document.addEventListener('input', bump, true);
+	document.addEventListener('change', bump, true);
+}
+return {
+	token : state.id === null ? null : state.id + ':' + state.version,
+	scrollX : Math.round(window.pageXOffset || document.documentElement.scrollLeft),
+	scrollY : Math.round(window.pageYOffset || document.documentElement.scrollTop),
+	viewportWidth : window.innerWidth,
+	viewportHeight : window.innerHeight
+};
@@ -0,0 +1,93 @@
+// Derives a short and stable CSS selector for an element. Unique ids, data attributes and names of the element or of
+// its closest ancestor are preferred over positions, positions only count siblings of the same tag. Every candidate is
+// checked to find exactly the element. The selector is kept on the element and reused as long as it still finds it.
+var LOCATOR_PROPERTY = '__seleniumLocator';
+var PREFERRED_DATA_ATTRIBUTES = [ 'data-testid', 'data-test', 'data-qa', 'data-id' ];
+function cssEscape(value) {
+	if (window.CSS && window.CSS.escape) {
+		return window.CSS.escape(value);
+	}
+	return String(value).replace(/[^a-zA-Z0-9_\-\u00A0-\uFFFF]/g, function(c) {
+		return '\\' + c;
+	}).replace(/^(-?)(\d)/, '$1\\3$2 ');
+}
+function quote(value) {
+	return '"' + String(value).replace(/\\/g, '\\\\').replace(/"/g, '\\"') + '"';
+}
+function findsOnly(selector, element) {
+	var matches;
+	try {
+		matches = document.querySelectorAll(selector);
+	} catch (e) {
+		return false;
+	}
+	return matches.length === 1 && matches[0] === element;
+}
+// Selectors naming the element by itself, best first.
+function ownSelectors(element) {
+	var tag = element.tagName.toLowerCase(), selectors = [], attributes = element.attributes, i, name;
+	if (element.id) {
+		selectors.push('#' + cssEscape(element.id));
+	}
+	for (i = 0; i < PREFERRED_DATA_ATTRIBUTES.length; i++) {
+		name = PREFERRED_DATA_ATTRIBUTES[i];
+		if (element.getAttribute(name)) {
+			selectors.push('[' + name + '=' + quote(element.getAttribute(name)) + ']');
+		}
+	}
+	for (i = 0; i < attributes.length; i++) {
+		name = attributes[i].name;
+		if (name.indexOf('data-') === 0 && PREFERRED_DATA_ATTRIBUTES.indexOf(name) < 0 && attributes[i].value) {
+			selectors.push(tag + '[' + cssEscape(name) + '=' + quote(attributes[i].value) + ']');
+		}
+	}
+	if (element.getAttribute('name')) {
+		selectors.push(tag + '[name=' + quote(element.getAttribute('name')) + ']');
+	}
+	return selectors;
+}
+// Position among the siblings of the same tag, omitted if there is no such sibling.
+function stepOf(element) {
+	var tag = element.tagName.toLowerCase(), siblings, index = 0, count = 0, i;
+	if (!element.parentNode) {
+		return tag;
+	}
+	siblings = element.parentNode.children;
+	for (i = 0; i < siblings.length; i++) {
+		if (siblings[i].tagName === element.tagName) {
+			count++;
+			if (siblings[i] === element) {
+				index = count;
+			}
+		}
+	}
+	return count === 1 ? tag : tag + ':nth-of-type(' + index + ')';
+}
+function remember(element, selector) {
+	element[LOCATOR_PROPERTY] = selector;
+	return selector;
+}
+function locatorOf(element) {
+	var path = '', node, own, i;
+	if (element[LOCATOR_PROPERTY] && findsOnly(element[LOCATOR_PROPERTY], element)) {
+		return element[LOCATOR_PROPERTY];
+	}
+	for (node = element; node && node.nodeType === 1; node = node.parentNode) {
+		own = ownSelectors(node);
+		for (i = 0; i < own.length; i++) {
+			if (findsOnly(own[i] + path, element)) {
+				return remember(element, own[i] + path);
+			}
+		}
+		if (node === document.documentElement) {
+			path = 'html' + path;
+			break;
+		}
+		path = ' > ' + stepOf(node) + path;
+		if (findsOnly(path.substring(3), element)) {
+			return remember(element, path.substring(3));
+		}
+	}
+	// not attached to the document
+	return findsOnly(path, element) ? remember(element, path) : null;
+}
@@ -0,0 +1,161 @@
+// Reports how busy the page is. The first call installs hooks counting the asynchronous work of the document:
+// XMLHttpRequest and fetch requests in flight, pending timeouts and pending animation frames. Periodic timers
+// (setInterval) and timeouts re-armed from their own callback (polling, tickers) are not counted, since they never
+// finish. The hooks live as long as the document.
+// arguments: longest delay of a timeout to be counted (ms)
+var state = window.__abReadiness;
+if (!state) {
+	state = window.__abReadiness = {
+		requests : 0,
+		timers : {},
+		timerCount : 0,
+		frames : {},
+		frameCount : 0,
+		maxTimerDelay : 0,
+		runningTimer : null,
+		lastActivity : 0
+	};
+	var now = function() {
+		return new Date().getTime();
+	};
+	var touch = function() {
+		state.lastActivity = now();
+	};
+	// the hooks cannot see what has happened before, so the resource timings tell when the page was last busy
+	state.lastActivity = now();
+	if (window.performance && performance.timing && performance.getEntriesByType) {
+		var last = performance.timing.loadEventEnd || 0;
+		var entries = performance.getEntriesByType('resource');
+		for (var i = 0; i < entries.length; i++) {
+			last = Math.max(last, performance.timing.navigationStart + entries[i].responseEnd);
+		}
+		if (last > 0) {
+			state.lastActivity = Math.min(state.lastActivity, last);
+		}
+	}
+
+	if (window.XMLHttpRequest && XMLHttpRequest.prototype.addEventListener) {
+		var originalSend = XMLHttpRequest.prototype.send;
+		XMLHttpRequest.prototype.send = function() {
+			var request = this;
+			var finished = false;
+			var finish = function() {
+				if (!finished) {
+					finished = true;
+					state.requests--;
+					touch();
+				}
+			};
+			state.requests++;
+			touch();
+			request.addEventListener('readystatechange', function() {
+				if (request.readyState === 4) {
+					finish();
+				}
+			});
+			try {
+				return originalSend.apply(request, arguments);
+			} catch (e) {
+				finish();
+				throw e;
+			}
+		};
+	}
+
+	if (window.fetch) {
+		var originalFetch = window.fetch;
+		window.fetch = function() {
+			var finish = function() {
+				state.requests--;
+				touch();
+			};
+			state.requests++;
+			touch();
+			var response;
+			try {
+				response = originalFetch.apply(this, arguments);
+			} catch (e) {
+				finish();
+				throw e;
+			}
+			response.then(finish, finish);
+			return response;
+		};
+	}
+
+	var originalSetTimeout = window.setTimeout;
+	var originalClearTimeout = window.clearTimeout;
+	// a callback scheduling itself again, be it the same function or a new closure of the same code
+	var isRearmed = function(callback) {
+		var running = state.runningTimer;
+		return running !== null && (running === callback || String(running) === String(callback));
+	};
+	window.setTimeout = function(callback, delay) {
+		if (typeof callback !== 'function' || delay > state.maxTimerDelay) {
+			return originalSetTimeout.apply(window, arguments);
+		}
+		var counted = !isRearmed(callback);
+		var args = Array.prototype.slice.call(arguments);
+		var id;
+		args[0] = function() {
+			if (state.timers[id]) {
+				delete state.timers[id];
+				state.timerCount--;
+				touch();
+			}
+			var outer = state.runningTimer;
+			state.runningTimer = callback;
+			try {
+				return callback.apply(this, arguments);
+			} finally {
+				state.runningTimer = outer;
+			}
+		};
+		id = originalSetTimeout.apply(window, args);
+		if (counted) {
+			state.timers[id] = true;
+			state.timerCount++;
+		}
+		return id;
+	};
+	window.clearTimeout = function(id) {
+		if (state.timers[id]) {
+			delete state.timers[id];
+			state.timerCount--;
+		}
+		return originalClearTimeout.apply(window, arguments);
+	};
+
+	if (window.requestAnimationFrame && window.cancelAnimationFrame) {
+		var originalRequestFrame = window.requestAnimationFrame;
+		var originalCancelFrame = window.cancelAnimationFrame;
+		window.requestAnimationFrame = function(callback) {
+			var id;
+			id = originalRequestFrame.call(window, function() {
+				if (state.frames[id]) {
+					delete state.frames[id];
+					state.frameCount--;
+				}
+				return callback.apply(this, arguments);
+			});
+			state.frames[id] = true;
+			state.frameCount++;
+			return id;
+		};
+		window.cancelAnimationFrame = function(id) {
+			if (state.frames[id]) {
+				delete state.frames[id];
+				state.frameCount--;
+			}
+			return originalCancelFrame.apply(window, arguments);
+		};
+	}
+}
+state.maxTimerDelay = arguments[0];
+return {
+	readyState : document.readyState,
+	requests : state.requests,
+	timers : state.timerCount,
+	frames : state.frameCount,
+	idle : new Date().getTime() - state.lastActivity
+};
@@ -0,0 +1,98 @@
+// Waits within the browser for elements (and optionally their texts) to appear, a single one or several at once.
+// arguments: locators as [strategy, value] or [strategy, value, expected text], true to wait for all elements or false
+// for any of them, timeout in ms, callback (added by executeAsyncScript).
+// The callback receives the elements in the order of the locators (null for those not present, if waiting for any),
+// null on timeout or {error: message} if a locator cannot be evaluated.
+var locators = arguments[0];
+var waitForAll = arguments[1];
+var timeout = arguments[2];
+var callback = arguments[arguments.length - 1];
+var done = false;
+var observer = null;
+var timeoutTimer = null;
+var pollingTimer = null;
+var checkScheduled = false;
+// browsers pause animation frames in hidden, minimised or occluded windows, so a timer backs every frame up
+var FRAME_FALLBACK_DELAY = 100;
+
+function finish(result) {
+	if (done) {
+		return;
+	}
+	done = true;
+	if (observer) {
+		observer.disconnect();
+	}
+	clearTimeout(timeoutTimer);
+	clearInterval(pollingTimer);
+	callback(result);
+}
+
+function check() {
+	var elements = [];
+	var found = 0;
+	for (var i = 0; i < locators.length; i++) {
+		var element;
+		try {
+			element = findElement(locators[i][0], locators[i][1]);
+		} catch (e) {
+			finish({ error : String(e) });
+			return;
+		}
+		if (element && locators[i].length > 2 && textOf(element) !== locators[i][2]) {
+			element = null;
+		}
+		if (element) {
+			found++;
+		} else if (waitForAll) {
+			return;
+		}
+		elements.push(element || null);
+	}
+	if (found > 0 || locators.length === 0) {
+		finish(elements);
+	}
+}
+
+// evaluate at most once per frame, however many mutations there are
+function scheduleCheck() {
+	if (checkScheduled || done) {
+		return;
+	}
+	checkScheduled = true;
+	var scheduledCheck = function() {
+		if (!checkScheduled) {
+			// run by the frame or the timer already
+			return;
+		}
+		checkScheduled = false;
+		if (!done) {
+			check();
+		}
+	};
+	if (window.requestAnimationFrame && !document.hidden) {
+		window.requestAnimationFrame(scheduledCheck);
+		setTimeout(scheduledCheck, FRAME_FALLBACK_DELAY);
+	} else {
+		setTimeout(scheduledCheck, 0);
+	}
+}
+
+check();
+if (!done) {
+	timeoutTimer = setTimeout(function() {
+		finish(null);
+	}, timeout);
+	if (window.MutationObserver) {
+		observer = new MutationObserver(scheduleCheck);
+		observer.observe(document.documentElement || document, {
+			childList : true,
+			subtree : true,
+			attributes : true,
+			characterData : true
+		});
+	} else {
+		// no way to be notified, poll within the browser instead
+		pollingTimer = setInterval(check, 50);
+	}
+}
@@ -1,33 +1,38 @@
 package com.ab.selenium.pages;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NotFoundException;
 import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.PageFactory;
-import org.openqa.selenium.support.pagefactory.AjaxElementLocatorFactory;
 import org.openqa.selenium.support.ui.ExpectedCondition;
-import org.openqa.selenium.support.ui.FluentWait;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 import com.ab.selenium.test.Logger;
 import com.ab.selenium.util.JavaScriptUtil;
 import com.ab.selenium.util.RenewableWebElement;
-import com.ab.selenium.util.TimeUtils;
+import com.ab.selenium.util.wait.AdaptiveWait;
+import com.ab.selenium.util.wait.AsyncWait;
+import com.ab.selenium.util.wait.BrowserWait;
+import com.ab.selenium.util.wait.Deadline;
+import com.ab.selenium.util.wait.ExponentialBackoff;
+import com.ab.selenium.util.wait.IPolledCondition;
+import com.ab.selenium.util.wait.PageReadinessDetector;
+import com.ab.selenium.util.wait.WaitStatistics;
 
 /**
  * Abstract page class, which contains general functionality. Especially waiting
  * for a specific element.
  */
 public abstract class AbstractPage<P extends AbstractPage> implements IFramedPage {
-	/** Time to sleep between checks for an element. In milliseconds. */
-	private static final Long TIME_TO_SLEEP = Long.valueOf(500);
 	/** Time limit to wait for an element. 30000 ms. */
 	public static final Long WAIT_TIME_LIMIT = Long.valueOf(30000);
 	/** Time limit to wait for an element for only Safari Web IOS. 45000 ms. */
@@ -103,15 +108,15 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 
 	/**
 	 * Initialises this page object. It waits until page is loaded and then
-	 * initialises the annotated instance variables.
+	 * binds the element instance variables to elements looked up on first use
+	 * (see {@link PageElementBinder}).
 	 */
 	protected final void init() {
 		preInit();
 		waitForLoad();
 		getDriver().getWindowHandle();
 		this.windowHandle = getDriver().getWindowHandle();
-		PageFactory.initElements(new AjaxElementLocatorFactory(getDriver(),
-				TimeUtils.getTimeInSeconds(WAIT_TIME_LIMIT).intValue()), this);
+		PageElementBinder.INSTANCE.bind(this, getDriver());
 	}
 
 	/**
@@ -154,6 +159,32 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 		waitForLoad(getDriver(), time);
 	}
 
+	/**
+	 * Wait for the page to settle: document loaded, no requests in flight,
+	 * no short timeouts pending except self re-arming ones (see
+	 * {@link PageReadinessDetector#DEFAULT}).
+	 * 
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 */
+	public final void waitForPageReady(final Long timeout) {
+		waitForPageReady(getDriver(), timeout);
+	}
+
+	/**
+	 * Static variant of the method {@link #waitForPageReady(Long)}.
+	 * 
+	 * @param driver
+	 *            {@link WebDriver} displaying the page
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 */
+	public static void waitForPageReady(final WebDriver driver,
+			final Long timeout) {
+		PageReadinessDetector.DEFAULT.waitUntilReady(driver,
+				timeout.longValue());
+	}
+
 	/**
 	 * Use this method to navigate to Url.
 	 * 
@@ -165,8 +196,10 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 	}
 
 	/**
-	 * Use this method to wait for a specified time. The timeout exception is
-	 * ignored.
+	 * Use this method to wait for a specified time. Nothing is verified, so
+	 * the sleep is not added to the {@link WaitStatistics}. To wait for the page to settle, use
+	 * {@link #waitForPageReady(WebDriver, Long)}, which returns as soon as the
+	 * page is idle.
 	 * 
 	 * @param driver
 	 *            {@link WebDriver}
@@ -174,27 +207,13 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 	 *            to wait (in milliseconds)
 	 */
 	public static void waitForLoad(final WebDriver driver, final Long time) {
-		ExpectedCondition<Boolean> eCondition = new ExpectedCondition<Boolean>() {
-			@Override
-			public Boolean apply(final WebDriver innerDriver) {
-				// do nothing
-				return Boolean.FALSE;
-			}
-
-			@Override
-			public String toString() {
-				return "Waiting for specific time, not verifying anything.";
-			}
-		};
-		WebDriverWait wait = new WebDriverWait(driver, TimeUtils
-				.getTimeInSeconds(time).longValue(), TimeUtils
-				.getTimeInSeconds(time).longValue());
+		// limited by the deadline of a running wait
 		try {
-			wait.until(eCondition);
-		} catch (org.openqa.selenium.TimeoutException e) {
-			// expected. do nothing
-			Logger.logStepResult("Done waiting for " + time + " ms.", false);
+			Thread.sleep(Deadline.within(time.longValue()).remaining());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
+		Logger.logStepResult("Done waiting for " + time + " ms.", false);
 	}
 
 	// /**
@@ -216,9 +235,9 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 	// }
 
 	/**
-	 * Waits for the element to be loaded/created and displayed. Lets the
-	 * {@link Thread} sleep as long as the element is not found or the timeout
-	 * has been reached.
+	 * Waits for the element to be loaded/created. The element is looked up
+	 * once per check and the found handle is returned without searching it
+	 * again.
 	 * 
 	 * @param finder
 	 *            a {@link By} object, which defines how to find the element
@@ -264,7 +283,9 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 	// }
 
 	/**
-	 * Static variant of the method {@link #waitForElement(By, Long)}.
+	 * Static variant of the method {@link #waitForElement(By, Long)}. The
+	 * element is waited for within the browser (see {@link BrowserWait}), so
+	 * that it is returned as soon as it appears instead of at the next poll.
 	 * 
 	 * @param finder
 	 *            a {@link By} object, which defines how to find the element
@@ -277,46 +298,158 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 	 */
 	public static RenewableWebElement waitForElement(final By finder,
 			final Long timeout, final WebDriver driver) {
-		ExpectedCondition<RenewableWebElement> eCondition = new ExpectedCondition<RenewableWebElement>() {
-			@Override
-			public RenewableWebElement apply(final WebDriver innerDriver) {
-				RenewableWebElement reElement = null;
-				try {
-					// try to find the element
-					reElement = new RenewableWebElement(innerDriver, finder);
-					if (!AbstractPage.isElementPresent(finder, driver)) {
-						// this was not successful
-						reElement = null;
-					}
-					// reElement = reElement.findElement(finder);
-				} catch (StaleElementReferenceException e) {
-					// do nothing
-					Logger.logStepResult(
-							"Element has been modified. Renewing, if there's time left.",
-							false);
-					reElement = null;
-				} catch (WebDriverException e) {
-					// do nothing
-					Logger.logStepResult(
-							"WebDriver has encountered an error. Retrying, if there's time left.",
-							false);
-					reElement = null;
-				}
-				return reElement;
-			}
+		WebElement element = BrowserWait.waitForElement(driver, finder,
+				timeout.longValue());
+		return new RenewableWebElement(driver, element, finder, true);
+	}
 
-			@Override
-			public String toString() {
-				return String.format(
-						"Waiting for WebElement using [%s] limited to [%d]ms.",
-						finder, timeout);
-			}
-		};
-		return waitForCondition(eCondition, timeout, driver);
+	/**
+	 * Wait for all elements to be present. The finders are evaluated together
+	 * within the browser, so that a page waiting for many elements needs a
+	 * single wait instead of one per element.
+	 * 
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 * @param finders
+	 *            {@link By} objects, which define how to find the elements
+	 * @return the {@link RenewableWebElement}s in the order of the finders
+	 */
+	public final List<RenewableWebElement> waitForElements(final Long timeout,
+			final By... finders) {
+		return waitForElements(getDriver(), timeout, finders);
+	}
+
+	/**
+	 * Shortcut for {@link #waitForElements(Long, By...)} using
+	 * {@link #WAIT_TIME_LIMIT}.
+	 * 
+	 * @param finders
+	 *            {@link By} objects, which define how to find the elements
+	 * @return the {@link RenewableWebElement}s in the order of the finders
+	 */
+	public final List<RenewableWebElement> waitForElements(final By... finders) {
+		return waitForElements(WAIT_TIME_LIMIT, finders);
+	}
+
+	/**
+	 * Static variant of the method {@link #waitForElements(Long, By...)}.
+	 * 
+	 * @param driver
+	 *            WebDriver, which finds the elements
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 * @param finders
+	 *            {@link By} objects, which define how to find the elements
+	 * @return the {@link RenewableWebElement}s in the order of the finders
+	 */
+	public static List<RenewableWebElement> waitForElements(
+			final WebDriver driver, final Long timeout, final By... finders) {
+		return wrap(driver, BrowserWait.waitForAllElements(driver,
+				timeout.longValue(), finders), finders);
+	}
+
+	/**
+	 * Wait for any of the elements to be present, e.g. a result or an error
+	 * message. The finders are evaluated together within the browser.
+	 * 
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 * @param finders
+	 *            {@link By} objects, which define how to find the elements
+	 * @return the {@link RenewableWebElement}s in the order of the finders,
+	 *         {@code null} for the elements not present
+	 */
+	public final List<RenewableWebElement> waitForAnyElement(
+			final Long timeout, final By... finders) {
+		return waitForAnyElement(getDriver(), timeout, finders);
+	}
+
+	/**
+	 * Static variant of the method {@link #waitForAnyElement(Long, By...)}.
+	 * 
+	 * @param driver
+	 *            WebDriver, which finds the elements
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 * @param finders
+	 *            {@link By} objects, which define how to find the elements
+	 * @return the {@link RenewableWebElement}s in the order of the finders,
+	 *         {@code null} for the elements not present
+	 */
+	public static List<RenewableWebElement> waitForAnyElement(
+			final WebDriver driver, final Long timeout, final By... finders) {
+		return wrap(driver, BrowserWait.waitForAnyElement(driver,
+				timeout.longValue(), finders), finders);
+	}
+
+	/**
+	 * Wrap the found elements, so that they are renewed by their finders.
+	 * 
+	 * @param driver
+	 *            WebDriver, which has found the elements
+	 * @param elements
+	 *            found elements, {@code null} for the elements not present
+	 * @param finders
+	 *            {@link By} objects, which have found the elements
+	 * @return the {@link RenewableWebElement}s in the order of the finders
+	 */
+	private static List<RenewableWebElement> wrap(final WebDriver driver,
+			final List<WebElement> elements, final By... finders) {
+		List<RenewableWebElement> reElements = new ArrayList<RenewableWebElement>();
+		for (int i = 0; i < finders.length; i++) {
+			WebElement element = elements.get(i);
+			reElements.add(element == null ? null : new RenewableWebElement(
+					driver, element, finders[i], true));
+		}
+		return reElements;
+	}
+
+	/**
+	 * Wait for the element to be present and have an expected text value
+	 * (leading and trailing white space ignored). Both are evaluated within
+	 * the browser (see {@link BrowserWait}).
+	 * 
+	 * @param finder
+	 *            a {@link By} object, which defines how to find the element
+	 * @param expectedValue
+	 *            the value, which has to be present on exit from the method
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 * @param driver
+	 *            WebDriver, which finds the element
+	 * @return the {@link RenewableWebElement} found by the {@code finder}
+	 *         request parameter
+	 */
+	public static RenewableWebElement waitForText(final By finder,
+			final String expectedValue, final Long timeout,
+			final WebDriver driver) {
+		WebElement element = BrowserWait.waitForText(driver, finder,
+				expectedValue, timeout.longValue());
+		return new RenewableWebElement(driver, element, finder, true);
 	}
 
 	/**
-	 * Waits a certain time until the specified condition is fulfilled.
+	 * see {@link #waitForText(By, String, Long, WebDriver)}.
+	 * 
+	 * @param finder
+	 *            a {@link By} object, which defines how to find the element
+	 * @param expectedValue
+	 *            the value, which has to be present on exit from the method
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 * @return the {@link RenewableWebElement} found by the {@code finder}
+	 *         request parameter
+	 */
+	protected final RenewableWebElement waitForText(final By finder,
+			final String expectedValue, final Long timeout) {
+		return waitForText(finder, expectedValue, timeout, getDriver());
+	}
+
+	/**
+	 * Waits a certain time until the specified condition is fulfilled. The
+	 * condition is polled quickly first and less often the longer it takes
+	 * (see {@link ExponentialBackoff#DEFAULT}), unless it provides its own
+	 * strategy (see {@link IPolledCondition}).
 	 * 
 	 * @param eCondition
 	 *            the expected condition to wait for
@@ -332,12 +465,137 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 	 */
 	public static <T> T waitForCondition(final ExpectedCondition<T> eCondition,
 			final Long timeout, final WebDriver driver) {
-		FluentWait<WebDriver> webDriverWait = new WebDriverWait(driver,
-				TimeUtils.getTimeInSeconds(timeout).longValue(),
-				TIME_TO_SLEEP.longValue()).ignoring(TimeoutException.class,
-				WebDriverException.class);
+		return waitFor("waitForCondition", null, eCondition, timeout, driver);
+	}
+
+	/**
+	 * see {@link #waitForCondition(ExpectedCondition, Long, WebDriver)}.
+	 * 
+	 * @param kind
+	 *            kind of wait as shown by the {@link WaitStatistics}
+	 * @param locator
+	 *            what is waited for as shown by the {@link WaitStatistics},
+	 *            {@code null} for the class of the condition
+	 * @param eCondition
+	 *            the expected condition to wait for
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 * @param driver
+	 *            WebDriver, which displays the element
+	 * @param <T>
+	 *            return object is the one returned by eCondition on successful
+	 *            execution.
+	 * @return condition return value
+	 */
+	private static <T> T waitFor(final String kind, final Object locator,
+			final ExpectedCondition<T> eCondition, final Long timeout,
+			final WebDriver driver) {
+		// polls and elapsed time are recorded by the WaitStatistics only, as
+		// waits are nested and far too frequent for the report
+		return new AdaptiveWait(driver, timeout.longValue())
+				.ignoring(TimeoutException.class, WebDriverException.class)
+				.describedAs(kind, locator).until(eCondition);
+	}
+
+	/**
+	 * Non-blocking variant of {@link #waitForCondition(ExpectedCondition, Long)}.
+	 * The condition is polled by a shared scheduler (see {@link AsyncWait}),
+	 * so independent waits can overlap and be joined at the end. The polls run
+	 * while the test keeps using the driver, without being serialised with its
+	 * commands, so the condition must only read the page: no switching of
+	 * frames or windows, navigation or interaction. The condition must not
+	 * wait itself either (e.g. via {@link #waitForElement(By, Long)}); such a
+	 * nested wait fails the future with an {@link IllegalStateException}.
+	 * 
+	 * @param eCondition
+	 *            condition to wait for
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 * @param <T>
+	 *            return object is the one returned by eCondition on successful
+	 *            execution.
+	 * @return future of the condition return value
+	 */
+	protected final <T> CompletableFuture<T> waitForConditionAsync(
+			final ExpectedCondition<T> eCondition, final Long timeout) {
+		return waitForConditionAsync(eCondition, timeout, getDriver());
+	}
+
+	/**
+	 * Static variant of the method
+	 * {@link #waitForConditionAsync(ExpectedCondition, Long)}.
+	 * 
+	 * @param eCondition
+	 *            condition to wait for
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 * @param driver
+	 *            WebDriver, which displays the element
+	 * @param <T>
+	 *            return object is the one returned by eCondition on successful
+	 *            execution.
+	 * @return future of the condition return value, completed exceptionally
+	 *         with a {@link TimeoutException} if the condition is not
+	 *         fulfilled within the timeout
+	 */
+	public static <T> CompletableFuture<T> waitForConditionAsync(
+			final ExpectedCondition<T> eCondition, final Long timeout,
+			final WebDriver driver) {
+		return AsyncWait.INSTANCE.until(driver, eCondition,
+				timeout.longValue(), ExponentialBackoff.DEFAULT);
+	}
+
+	/**
+	 * Non-blocking variant of {@link #waitForElement(By, Long)}. The element
+	 * is looked up once per poll by the driver, since a wait within the
+	 * browser would block a thread for the whole wait.
+	 * 
+	 * @param finder
+	 *            a {@link By} object, which defines how to find the element
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 * @return future of the {@link RenewableWebElement} found by the
+	 *         {@code finder}
+	 */
+	public final CompletableFuture<RenewableWebElement> waitForElementAsync(
+			final By finder, final Long timeout) {
+		return waitForElementAsync(finder, timeout, getDriver());
+	}
 
-		return webDriverWait.until(eCondition);
+	/**
+	 * Static variant of the method {@link #waitForElementAsync(By, Long)}.
+	 * 
+	 * @param finder
+	 *            a {@link By} object, which defines how to find the element
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds).
+	 * @param driver
+	 *            WebDriver, which finds the element
+	 * @return future of the {@link RenewableWebElement} found by the
+	 *         {@code finder}
+	 */
+	public static CompletableFuture<RenewableWebElement> waitForElementAsync(
+			final By finder, final Long timeout, final WebDriver driver) {
+		return waitForConditionAsync(
+				new ExpectedCondition<RenewableWebElement>() {
+					@Override
+					public RenewableWebElement apply(final WebDriver innerDriver) {
+						List<WebElement> elements = innerDriver
+								.findElements(finder);
+						if (elements.isEmpty()) {
+							return null;
+						}
+						return new RenewableWebElement(innerDriver, elements
+								.get(0), finder, true);
+					}
+
+					@Override
+					public String toString() {
+						return String.format(
+								"Waiting for WebElement using [%s] limited to [%d]ms.",
+								finder, timeout);
+					}
+				}, timeout, driver);
 	}
 
 	// /**
@@ -394,7 +652,7 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 								element, expectedValue, timeout);
 			}
 		};
-		waitForCondition(eCondition, timeout);
+		waitFor("waitForText", element, eCondition, timeout, getDriver());
 	}
 
 	/**
@@ -449,13 +707,15 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 		ExpectedCondition<String> textFetched = new ExpectedCondition<String>() {
 			@Override
 			public String apply(final WebDriver aDriver) {
-				RenewableWebElement element = new RenewableWebElement(aDriver,
-						elementSearchTerm);
+				// a single lookup per poll, the found handle is read directly
+				List<WebElement> elements = aDriver
+						.findElements(elementSearchTerm);
 				try {
-					if (element.isElementPresent()) {
-						return element.getText();
+					if (!elements.isEmpty()) {
+						return elements.get(0).getText();
 					}
 				} catch (StaleElementReferenceException ignore) {
+					AdaptiveWait.noteStaleRetry();
 					Logger.logStepResult(
 							"WebElement has been modified. Renewing, if there's time left.",
 							false);
@@ -471,7 +731,8 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 			}
 		};
 
-		return waitForCondition(textFetched, timeout, driver);
+		return waitFor("fetchText", elementSearchTerm, textFetched, timeout,
+				driver);
 	}
 
 	/**
@@ -522,6 +783,7 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 					try {
 						return element.getAttribute(attributeName);
 					} catch (StaleElementReferenceException ignore) {
+						AdaptiveWait.noteStaleRetry();
 						Logger.logStepResult(
 								"WebElement has been modified. Renewing, if there's time left.",
 								false);
@@ -537,7 +799,8 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 								elementSearchTerm, attributeName);
 			}
 		};
-		return waitForCondition(attributeValueFetched, timeout, driver);
+		return waitFor("fetchAttributeValue", elementSearchTerm,
+				attributeValueFetched, timeout, driver);
 	}
 
 	/**
@@ -629,10 +892,10 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 								findElementBy);
 			}
 		};
-		WebDriverWait webDriverWait = new WebDriverWait(driver, TimeUtils
-				.getTimeInSeconds(timeout).longValue(),
-				TIME_TO_SLEEP.longValue());
-		webDriverWait.until(eCondition);
+		new AdaptiveWait(driver, timeout.longValue())
+				.ignoring(NotFoundException.class)
+				.describedAs("waitForAttribute", findElementBy)
+				.until(eCondition);
 		return driver.findElement(findElementBy).getAttribute(attributeName);
 	}
 
@@ -672,10 +935,10 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 								attributeName, expectedValue, findElementBy);
 			}
 		};
-		WebDriverWait webDriverWait = new WebDriverWait(driver, TimeUtils
-				.getTimeInSeconds(timeout).longValue(),
-				TIME_TO_SLEEP.longValue());
-		webDriverWait.until(eCondition);
+		new AdaptiveWait(driver, timeout.longValue())
+				.ignoring(NotFoundException.class)
+				.describedAs("waitForAttribute", findElementBy)
+				.until(eCondition);
 	}
 
 	/**
@@ -813,8 +1076,7 @@ public abstract class AbstractPage<P extends AbstractPage> implements IFramedPag
 	 */
 	public static boolean isElementPresent(final By finder,
 			final WebDriver driver) {
-		RenewableWebElement webElement = new RenewableWebElement(driver, finder);
-		return webElement.isElementPresent();
+		return !driver.findElements(finder).isEmpty();
 
 	}
 
@@ -0,0 +1,33 @@
+package com.ab.selenium.pages;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Binds the element fields of a page class and creates its instances without reflection. Implementations are
+ * generated at compile time by {@link com.ab.selenium.processor.PageBinderProcessor} as {@code <Page>_Binder} next to
+ * the page class and picked up by the {@link PageElementBinder}.
+ * 
+ * @param <T>
+ *            page class
+ */
+public interface IPageBinder<T extends AbstractPage> {
+	/**
+	 * Bind the element fields of the page to lazy proxies.
+	 * 
+	 * @param page
+	 *            page object to initialise
+	 * @param driver
+	 *            WebDriver displaying the page
+	 */
+	void bind(T page, WebDriver driver);
+
+	/**
+	 * Create the page from its parent page, as done by {@link com.ab.selenium.util.PageFactory}.
+	 * 
+	 * @param parentPage
+	 *            the calling page
+	 * @return new page, or {@code null} if the page has no public constructor taking the parent page (the
+	 *         {@link PageElementBinder} then tries reflection, which reports the missing constructor)
+	 */
+	T create(AbstractPage parentPage);
+}
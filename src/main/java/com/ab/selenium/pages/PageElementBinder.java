@@ -0,0 +1,486 @@
+package com.ab.selenium.pages;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.Locatable;
+import org.openqa.selenium.internal.WrapsElement;
+import org.openqa.selenium.support.FindAll;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.FindBys;
+import org.openqa.selenium.support.pagefactory.Annotations;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import com.ab.selenium.util.wait.AdaptiveWait;
+import com.ab.selenium.util.wait.BrowserWait;
+import com.ab.selenium.util.wait.Deadline;
+
+/**
+ * Binds the {@link WebElement} fields of the page objects. Pages with a
+ * binder generated at compile time (see {@link IPageBinder}) are bound by it
+ * without any reflection. The others are bound like
+ * {@link org.openqa.selenium.support.PageFactory#initElements(WebDriver, Object)
+ * PageFactory.initElements}, but
+ * <li>scans every page class only once and keeps the fields with their
+ * {@link By} (read from {@link FindBy}, {@link FindBys}, {@link FindAll} or
+ * the field name) for all later instances and</li>
+ * <li>binds the fields to lazy proxies, which look the element up on first
+ * use and keep it until it becomes stale, i.e. until the DOM of the page has
+ * changed.</li><br>
+ * Constructing a page therefore costs neither reflection on the annotations
+ * nor a lookup of the elements the test never touches. An element, which is
+ * not present on first use, is waited for (see {@link BrowserWait}) up to
+ * {@link AbstractPage#WAIT_TIME_LIMIT}, limited by the deadline of a running
+ * wait. Lists are looked up on every use, unless annotated with
+ * {@link org.openqa.selenium.support.CacheLookup CacheLookup}. Like with the
+ * {@link org.openqa.selenium.support.pagefactory.AjaxElementLocator
+ * AjaxElementLocator}, an empty list is waited for to fill up to the same
+ * limit and only then used as empty. Empty lists are never cached.<br>
+ * An enum is used for implementation in order to make it a thread safe and
+ * serializable singleton.
+ */
+public enum PageElementBinder {
+	/** The only instance of the binder. */
+	INSTANCE;
+
+	/** Interfaces implemented by the element proxies. */
+	private static final Class<?>[] ELEMENT_INTERFACES = { WebElement.class,
+			WrapsElement.class, Locatable.class };
+
+	/** Suffix of the binders generated for the page classes. */
+	public static final String BINDER_SUFFIX = "_Binder";
+	/** Marker of page classes without generated binder. */
+	private static final Object NO_BINDER = new Object();
+
+	/** Generated binders or {@link #NO_BINDER} by page class. */
+	private final ConcurrentMap<Class<?>, Object> generatedBinders = new ConcurrentHashMap<Class<?>, Object>();
+	/** Bound fields by page class, including the fields of the super classes. */
+	private final ConcurrentMap<Class<?>, List<ElementField>> pageFields = new ConcurrentHashMap<Class<?>, List<ElementField>>();
+
+	/**
+	 * Bind the element fields of the page to lazy proxies.
+	 * 
+	 * @param page
+	 *            page object to initialise
+	 * @param driver
+	 *            WebDriver displaying the page
+	 */
+	public void bind(final Object page, final WebDriver driver) {
+		IPageBinder<AbstractPage> generatedBinder = getGeneratedBinder(page
+				.getClass());
+		if (generatedBinder != null) {
+			generatedBinder.bind((AbstractPage) page, driver);
+			return;
+		}
+		for (ElementField elementField : getFields(page.getClass())) {
+			Object value = elementField.list ? elements(driver,
+					elementField.finder, elementField.cached) : element(
+					driver, elementField.finder);
+			try {
+				elementField.field.set(page, value);
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException("Unable to bind "
+						+ elementField.field, e);
+			}
+		}
+	}
+
+	/**
+	 * Create the page from its parent page, via the generated binder if it
+	 * can create the page, otherwise via the public constructor taking the
+	 * parent page.
+	 * 
+	 * @param pageClass
+	 *            class of the page to create
+	 * @param parentPage
+	 *            the calling page
+	 * @param <T>
+	 *            page class
+	 * @return new page
+	 * @throws NoSuchMethodException
+	 *             if there is no generated binder and no public constructor
+	 *             taking the parent page
+	 * @throws InstantiationException
+	 *             if the page class is abstract
+	 * @throws IllegalAccessException
+	 *             if the constructor is not accessible
+	 * @throws InvocationTargetException
+	 *             if the constructor throws an exception
+	 */
+	public <T extends AbstractPage> T createPage(final Class<T> pageClass,
+			final AbstractPage parentPage) throws NoSuchMethodException,
+			InstantiationException, IllegalAccessException,
+			InvocationTargetException {
+		IPageBinder<T> generatedBinder = getGeneratedBinder(pageClass);
+		if (generatedBinder != null) {
+			T page;
+			try {
+				page = generatedBinder.create(parentPage);
+			} catch (RuntimeException e) {
+				// thrown by the constructor, reported like by reflection
+				throw new InvocationTargetException(e);
+			}
+			if (page != null) {
+				return page;
+			}
+		}
+		return pageClass.getConstructor(AbstractPage.class).newInstance(
+				parentPage);
+	}
+
+	/**
+	 * Get the binder generated for the page class (see {@link IPageBinder}),
+	 * looking it up on first request.
+	 * 
+	 * @param pageClass
+	 *            class of the page
+	 * @param <T>
+	 *            page class
+	 * @return the generated binder or {@code null} if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends AbstractPage> IPageBinder<T> getGeneratedBinder(
+			final Class<?> pageClass) {
+		Object binder = this.generatedBinders.get(pageClass);
+		if (binder == null) {
+			binder = NO_BINDER;
+			try {
+				Class<?> binderClass = Class.forName(pageClass.getName()
+						+ BINDER_SUFFIX, true, pageClass.getClassLoader());
+				if (IPageBinder.class.isAssignableFrom(binderClass)) {
+					binder = binderClass.getDeclaredConstructor().newInstance();
+				}
+			} catch (ClassNotFoundException e) {
+				// not generated, bound by reflection
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException(
+						"Unable to instantiate the binder of " + pageClass, e);
+			}
+			this.generatedBinders.putIfAbsent(pageClass, binder);
+		}
+		return binder == NO_BINDER ? null : (IPageBinder<T>) binder;
+	}
+
+	/**
+	 * Create a lazy proxy of an element.
+	 * 
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @param finder
+	 *            how to find the element
+	 * @return proxy looking the element up on first use
+	 */
+	public static WebElement element(final WebDriver driver, final By finder) {
+		return (WebElement) Proxy.newProxyInstance(
+				PageElementBinder.class.getClassLoader(), ELEMENT_INTERFACES,
+				new LazyElementHandler(driver, finder));
+	}
+
+	/**
+	 * Create a lazy proxy of a list of elements.
+	 * 
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @param finder
+	 *            how to find the elements
+	 * @param cached
+	 *            {@code true} to look the elements up only once
+	 * @return proxy looking the elements up on use
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<WebElement> elements(final WebDriver driver,
+			final By finder, final boolean cached) {
+		return (List<WebElement>) Proxy.newProxyInstance(
+				PageElementBinder.class.getClassLoader(),
+				new Class<?>[] { List.class }, new LazyListHandler(driver,
+						finder, cached));
+	}
+
+	/**
+	 * Get the element fields of the page class, scanning the class on first
+	 * request.
+	 * 
+	 * @param pageClass
+	 *            class of the page
+	 * @return the fields to bind
+	 */
+	private List<ElementField> getFields(final Class<?> pageClass) {
+		List<ElementField> fields = this.pageFields.get(pageClass);
+		if (fields == null) {
+			fields = scan(pageClass);
+			List<ElementField> concurrentlyScanned = this.pageFields
+					.putIfAbsent(pageClass, fields);
+			if (concurrentlyScanned != null) {
+				fields = concurrentlyScanned;
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * Find the element fields of the class and its super classes. Like
+	 * {@link org.openqa.selenium.support.pagefactory.DefaultFieldDecorator
+	 * DefaultFieldDecorator}, every {@link WebElement} field is bound, lists
+	 * only if annotated.
+	 * 
+	 * @param pageClass
+	 *            class of the page
+	 * @return the fields to bind
+	 */
+	private static List<ElementField> scan(final Class<?> pageClass) {
+		List<ElementField> fields = new ArrayList<ElementField>();
+		for (Class<?> type = pageClass; type != null && type != Object.class; type = type
+				.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				boolean list = isElementList(field);
+				if (!list && field.getType() != WebElement.class) {
+					continue;
+				}
+				Annotations annotations = new Annotations(field);
+				field.setAccessible(true);
+				fields.add(new ElementField(field, annotations.buildBy(), list,
+						annotations.isLookupCached()));
+			}
+		}
+		return Collections.unmodifiableList(fields);
+	}
+
+	/**
+	 * @param field
+	 *            field of a page
+	 * @return {@code true} if the field is an annotated list of
+	 *         {@link WebElement}s
+	 */
+	private static boolean isElementList(final Field field) {
+		if (field.getType() != List.class) {
+			return false;
+		}
+		Type genericType = field.getGenericType();
+		if (!(genericType instanceof ParameterizedType)
+				|| ((ParameterizedType) genericType).getActualTypeArguments()[0] != WebElement.class) {
+			return false;
+		}
+		return field.getAnnotation(FindBy.class) != null
+				|| field.getAnnotation(FindBys.class) != null
+				|| field.getAnnotation(FindAll.class) != null;
+	}
+
+	/**
+	 * Invoke the method, unwrapping the exception thrown by it.
+	 * 
+	 * @param target
+	 *            object to invoke the method on
+	 * @param method
+	 *            method to invoke
+	 * @param args
+	 *            arguments of the method
+	 * @return result of the method
+	 * @throws Throwable
+	 *             exception thrown by the method
+	 */
+	private static Object invoke(final Object target, final Method method,
+			final Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Element field of a page class.
+	 */
+	private static final class ElementField {
+		/** The field, accessible. */
+		private final Field field;
+		/** How to find the element(s). */
+		private final By finder;
+		/** Is the field a list of elements? */
+		private final boolean list;
+		/** Should a list be looked up only once? */
+		private final boolean cached;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param field
+		 *            the field, accessible
+		 * @param finder
+		 *            how to find the element(s)
+		 * @param list
+		 *            is the field a list of elements?
+		 * @param cached
+		 *            should a list be looked up only once?
+		 */
+		ElementField(final Field field, final By finder, final boolean list,
+				final boolean cached) {
+			this.field = field;
+			this.finder = finder;
+			this.list = list;
+			this.cached = cached;
+		}
+	}
+
+	/**
+	 * Looks the element up on first use and again once it has become stale.
+	 * The proxy answers {@code equals}, {@code hashCode} and {@code toString}
+	 * itself, by identity and finder, without looking the element up.
+	 */
+	private static final class LazyElementHandler implements InvocationHandler {
+		/** WebDriver displaying the page. */
+		private final WebDriver driver;
+		/** How to find the element. */
+		private final By finder;
+		/** The element, {@code null} until looked up. */
+		private volatile WebElement element;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param driver
+		 *            WebDriver displaying the page
+		 * @param finder
+		 *            how to find the element
+		 */
+		LazyElementHandler(final WebDriver driver, final By finder) {
+			this.driver = driver;
+			this.finder = finder;
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method,
+				final Object[] args) throws Throwable {
+			String name = method.getName();
+			if ("toString".equals(name) && args == null) {
+				return "Proxy element for: " + this.finder;
+			}
+			if ("hashCode".equals(name) && args == null) {
+				return Integer.valueOf(System.identityHashCode(proxy));
+			}
+			if ("equals".equals(name) && args != null && args.length == 1) {
+				return Boolean.valueOf(proxy == args[0]);
+			}
+			WebElement target = resolve();
+			if ("getWrappedElement".equals(method.getName())) {
+				return target;
+			}
+			try {
+				return PageElementBinder.invoke(target, method, args);
+			} catch (StaleElementReferenceException e) {
+				// the DOM has changed, look the element up again
+				this.element = null;
+				return PageElementBinder.invoke(resolve(), method, args);
+			}
+		}
+
+		/**
+		 * @return the element, looked up if not known yet
+		 */
+		private WebElement resolve() {
+			WebElement target = this.element;
+			if (target == null) {
+				target = BrowserWait.waitForElement(this.driver, this.finder,
+						Deadline.within(AbstractPage.WAIT_TIME_LIMIT.longValue())
+								.remaining());
+				this.element = target;
+			}
+			return target;
+		}
+	}
+
+	/**
+	 * Looks the elements up on every use, or only once if cached. An empty
+	 * result is waited for to fill.
+	 */
+	private static final class LazyListHandler implements InvocationHandler {
+		/** WebDriver displaying the page. */
+		private final WebDriver driver;
+		/** How to find the elements. */
+		private final By finder;
+		/** Should the elements be looked up only once? */
+		private final boolean cached;
+		/** The elements, if cached and looked up. */
+		private volatile List<WebElement> elements;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param driver
+		 *            WebDriver displaying the page
+		 * @param finder
+		 *            how to find the elements
+		 * @param cached
+		 *            should the elements be looked up only once?
+		 */
+		LazyListHandler(final WebDriver driver, final By finder,
+				final boolean cached) {
+			this.driver = driver;
+			this.finder = finder;
+			this.cached = cached;
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method,
+				final Object[] args) throws Throwable {
+			if ("toString".equals(method.getName()) && args == null) {
+				return "Proxy element list for: " + this.finder;
+			}
+			List<WebElement> target = this.elements;
+			if (target == null) {
+				target = lookUp();
+				if (this.cached && !target.isEmpty()) {
+					this.elements = target;
+				}
+			}
+			return PageElementBinder.invoke(target, method, args);
+		}
+
+		/**
+		 * Find the elements, waiting for at least one up to
+		 * {@link AbstractPage#WAIT_TIME_LIMIT}, limited by the deadline of a
+		 * running wait.
+		 * 
+		 * @return the elements, empty if there are none after waiting
+		 */
+		private List<WebElement> lookUp() {
+			ExpectedCondition<List<WebElement>> filled =
+					new ExpectedCondition<List<WebElement>>() {
+				@Override
+				public List<WebElement> apply(final WebDriver aDriver) {
+					List<WebElement> found = aDriver
+							.findElements(LazyListHandler.this.finder);
+					return found.isEmpty() ? null : found;
+				}
+
+				@Override
+				public String toString() {
+					return "elements found by " + LazyListHandler.this.finder;
+				}
+			};
+			try {
+				return new AdaptiveWait(this.driver, Deadline.within(
+						AbstractPage.WAIT_TIME_LIMIT.longValue()).remaining())
+						.describedAs("waitForElements", this.finder).until(
+								filled);
+			} catch (TimeoutException e) {
+				// no elements is a valid state of a list
+				return Collections.emptyList();
+			}
+		}
+	}
+}
@@ -0,0 +1,491 @@
+package com.ab.selenium.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.openqa.selenium.support.CacheLookup;
+import org.openqa.selenium.support.FindAll;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.FindBys;
+import org.openqa.selenium.support.How;
+
+/**
+ * Generates a binder (see {@link com.ab.selenium.pages.IPageBinder IPageBinder}) for every concrete, top level
+ * subclass of {@link com.ab.selenium.pages.AbstractPage AbstractPage} being compiled. The binder
+ * {@code <Page>_Binder} is placed in the package of the page and contains
+ * <li>a {@code By} constant per element field, built from the {@link FindBy}, {@link FindBys} and {@link FindAll}
+ * annotations like {@link org.openqa.selenium.support.pagefactory.Annotations Annotations} does at runtime, and
+ * numbered should two fields map to the same constant name (e.g. {@code userName} and {@code user_name}),</li>
+ * <li>direct assignments of the lazy element proxies to the fields and</li>
+ * <li>a factory method calling the public constructor taking the parent page, or returning {@code null} if there is
+ * none, so the page is created by reflection.</li><br>
+ * Pages with element fields the binder cannot assign (private, final or static) are not generated and stay bound by
+ * reflection; a note tells which field prevents it.<br>
+ * The processor is registered in {@code META-INF/services}, so it runs for every project compiling pages against this
+ * library.
+ */
+@SupportedAnnotationTypes("*")
+public class PageBinderProcessor extends AbstractProcessor {
+	/** Base class of the pages. */
+	private static final String ABSTRACT_PAGE = "com.ab.selenium.pages.AbstractPage";
+	/** Type of the element fields. */
+	private static final String WEB_ELEMENT = "org.openqa.selenium.WebElement";
+	/** Suffix of the generated binders, as expected by {@code PageElementBinder#BINDER_SUFFIX}. */
+	private static final String BINDER_SUFFIX = "_Binder";
+	/** Indentation of the generated code. */
+	private static final String INDENT = "\t";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+		TypeElement abstractPage = this.processingEnv.getElementUtils().getTypeElement(ABSTRACT_PAGE);
+		if (abstractPage == null) {
+			return false;
+		}
+		Types types = this.processingEnv.getTypeUtils();
+		TypeMirror pageType = types.erasure(abstractPage.asType());
+		for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+			if (type.getKind() == ElementKind.CLASS && type.getNestingKind() == NestingKind.TOP_LEVEL
+					&& !type.getModifiers().contains(Modifier.ABSTRACT)
+					&& types.isSubtype(types.erasure(type.asType()), pageType)) {
+				generate(type);
+			}
+		}
+		// other processors may handle the same annotations
+		return false;
+	}
+
+	/**
+	 * Generate the binder of the page.
+	 * 
+	 * @param page
+	 *            concrete page class
+	 */
+	private void generate(final TypeElement page) {
+		PackageElement pagePackage = this.processingEnv.getElementUtils().getPackageOf(page);
+		List<ElementField> fields = new ArrayList<ElementField>();
+		Set<String> names = new HashSet<String>();
+		Set<String> constants = new HashSet<String>();
+		Types types = this.processingEnv.getTypeUtils();
+		for (TypeElement type = page; type != null && !type.getQualifiedName().contentEquals(ABSTRACT_PAGE); type =
+				superclass(type)) {
+			for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+				Boolean list = elementKind(field);
+				if (list == null || !names.add(field.getSimpleName().toString())) {
+					// no element field or hidden by the sub class
+					continue;
+				}
+				String obstacle = assignmentObstacle(field, type, pagePackage);
+				if (obstacle != null) {
+					this.processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+							"No binder generated for " + page + ", it is bound by reflection: field "
+									+ field.getSimpleName() + " is " + obstacle + ".", field);
+					return;
+				}
+				String name = field.getSimpleName().toString();
+				fields.add(new ElementField(name, constant(name, constants), list.booleanValue(), finder(field),
+						field.getAnnotation(CacheLookup.class) != null));
+			}
+		}
+		String binderName = page.getSimpleName() + BINDER_SUFFIX;
+		String qualifiedName = pagePackage.isUnnamed() ? binderName : pagePackage.getQualifiedName() + "."
+				+ binderName;
+		try {
+			JavaFileObject source = this.processingEnv.getFiler().createSourceFile(qualifiedName, page);
+			PrintWriter out = new PrintWriter(source.openWriter());
+			try {
+				write(out, pagePackage, page, binderName, fields, hasParentConstructor(page, types));
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Unable to generate " + qualifiedName + ": " + e, page);
+		}
+	}
+
+	/**
+	 * Write the source of the binder.
+	 * 
+	 * @param out
+	 *            where to write
+	 * @param pagePackage
+	 *            package of the page
+	 * @param page
+	 *            page class
+	 * @param binderName
+	 *            simple name of the binder
+	 * @param fields
+	 *            element fields to bind
+	 * @param creatable
+	 *            has the page a public constructor taking the parent page?
+	 */
+	private static void write(final PrintWriter out, final PackageElement pagePackage, final TypeElement page,
+			final String binderName, final List<ElementField> fields, final boolean creatable) {
+		String pageName = page.getSimpleName().toString();
+		if (!pagePackage.isUnnamed()) {
+			out.println("package " + pagePackage.getQualifiedName() + ";");
+			out.println();
+		}
+		out.println("/**");
+		out.println(" * Binder of {@link " + pageName + "}, generated by " + PageBinderProcessor.class.getName()
+				+ ". Do not edit.");
+		out.println(" */");
+		out.println("public final class " + binderName + " implements com.ab.selenium.pages.IPageBinder<"
+				+ pageName + "> {");
+		for (ElementField field : fields) {
+			out.println(INDENT + "/** Locator of {@link " + pageName + "#" + field.name + "}. */");
+			out.println(INDENT + "public static final org.openqa.selenium.By " + field.constant + " = "
+					+ field.finder + ";");
+		}
+		out.println();
+		out.println(INDENT + "@Override");
+		out.println(INDENT + "public void bind(final " + pageName
+				+ " page, final org.openqa.selenium.WebDriver driver) {");
+		for (ElementField field : fields) {
+			if (field.list) {
+				out.println(INDENT + INDENT + "page." + field.name
+						+ " = com.ab.selenium.pages.PageElementBinder.elements(driver, " + field.constant + ", "
+						+ field.cached + ");");
+			} else {
+				out.println(INDENT + INDENT + "page." + field.name
+						+ " = com.ab.selenium.pages.PageElementBinder.element(driver, " + field.constant + ");");
+			}
+		}
+		out.println(INDENT + "}");
+		out.println();
+		out.println(INDENT + "@Override");
+		out.println(INDENT + "public " + pageName + " create(final com.ab.selenium.pages.AbstractPage parentPage) {");
+		if (creatable) {
+			out.println(INDENT + INDENT + "return new " + pageName + "(parentPage);");
+		} else {
+			out.println(INDENT + INDENT + "// no public constructor taking the parent page, created by reflection");
+			out.println(INDENT + INDENT + "return null;");
+		}
+		out.println(INDENT + "}");
+		out.println("}");
+	}
+
+	/**
+	 * @param name
+	 *            name of an element field
+	 * @param constants
+	 *            names of the constants taken so far, the returned one is added
+	 * @return name of the locator constant, e.g. {@code USER_NAME} for {@code userName}, numbered if already taken
+	 */
+	private static String constant(final String name, final Set<String> constants) {
+		String constant = name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ENGLISH);
+		String unique = constant;
+		for (int i = 2; !constants.add(unique); i++) {
+			unique = constant + "_" + i;
+		}
+		return unique;
+	}
+
+	/**
+	 * @param field
+	 *            field of a page
+	 * @return {@code false} for a {@code WebElement}, {@code true} for an annotated {@code List<WebElement>},
+	 *         {@code null} for other fields (like {@code DefaultFieldDecorator})
+	 */
+	private Boolean elementKind(final VariableElement field) {
+		TypeMirror type = field.asType();
+		if (type.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		DeclaredType declaredType = (DeclaredType) type;
+		String name = ((TypeElement) declaredType.asElement()).getQualifiedName().toString();
+		if (WEB_ELEMENT.equals(name)) {
+			return Boolean.FALSE;
+		}
+		if ("java.util.List".equals(name)
+				&& declaredType.getTypeArguments().size() == 1
+				&& declaredType.getTypeArguments().get(0).toString().equals(WEB_ELEMENT)
+				&& (field.getAnnotation(FindBy.class) != null || field.getAnnotation(FindBys.class) != null || field
+						.getAnnotation(FindAll.class) != null)) {
+			return Boolean.TRUE;
+		}
+		return null;
+	}
+
+	/**
+	 * @param field
+	 *            element field
+	 * @param declaringType
+	 *            class declaring the field
+	 * @param binderPackage
+	 *            package of the binder
+	 * @return why the binder cannot assign the field, {@code null} if it can
+	 */
+	private static String assignmentObstacle(final VariableElement field, final TypeElement declaringType,
+			final PackageElement binderPackage) {
+		Set<Modifier> modifiers = field.getModifiers();
+		if (modifiers.contains(Modifier.PRIVATE)) {
+			return "private";
+		}
+		if (modifiers.contains(Modifier.FINAL)) {
+			return "final";
+		}
+		if (modifiers.contains(Modifier.STATIC)) {
+			return "static";
+		}
+		boolean samePackage = packageOf(declaringType).equals(binderPackage);
+		if (!samePackage
+				&& !(modifiers.contains(Modifier.PUBLIC) && declaringType.getModifiers().contains(Modifier.PUBLIC))) {
+			return "not accessible from package " + binderPackage;
+		}
+		return null;
+	}
+
+	/**
+	 * @param field
+	 *            element field
+	 * @return Java expression creating the {@code By} of the field
+	 */
+	private static String finder(final VariableElement field) {
+		FindBys findBys = field.getAnnotation(FindBys.class);
+		if (findBys != null) {
+			return "new org.openqa.selenium.support.pagefactory.ByChained(" + finders(findBys.value()) + ")";
+		}
+		FindAll findAll = field.getAnnotation(FindAll.class);
+		if (findAll != null) {
+			return "new org.openqa.selenium.support.pagefactory.ByAll(" + finders(findAll.value()) + ")";
+		}
+		FindBy findBy = field.getAnnotation(FindBy.class);
+		if (findBy != null) {
+			return finder(findBy);
+		}
+		return "new org.openqa.selenium.support.ByIdOrName(" + literal(field.getSimpleName().toString()) + ")";
+	}
+
+	/**
+	 * @param findBys
+	 *            several annotations
+	 * @return Java expressions creating their {@code By}s, separated by commas
+	 */
+	private static String finders(final FindBy[] findBys) {
+		StringBuilder expressions = new StringBuilder();
+		for (FindBy findBy : findBys) {
+			if (expressions.length() > 0) {
+				expressions.append(", ");
+			}
+			expressions.append(finder(findBy));
+		}
+		return expressions.toString();
+	}
+
+	/**
+	 * Same precedence as {@code AbstractAnnotations.buildByFromFindBy}: {@code how}/{@code using} first, then the
+	 * short forms.
+	 * 
+	 * @param findBy
+	 *            annotation
+	 * @return Java expression creating its {@code By}
+	 */
+	private static String finder(final FindBy findBy) {
+		if (findBy.how() != How.UNSET) {
+			return finder(findBy.how(), findBy.using());
+		}
+		if (!findBy.className().isEmpty()) {
+			return finder(How.CLASS_NAME, findBy.className());
+		}
+		if (!findBy.css().isEmpty()) {
+			return finder(How.CSS, findBy.css());
+		}
+		if (!findBy.id().isEmpty()) {
+			return finder(How.ID, findBy.id());
+		}
+		if (!findBy.linkText().isEmpty()) {
+			return finder(How.LINK_TEXT, findBy.linkText());
+		}
+		if (!findBy.name().isEmpty()) {
+			return finder(How.NAME, findBy.name());
+		}
+		if (!findBy.partialLinkText().isEmpty()) {
+			return finder(How.PARTIAL_LINK_TEXT, findBy.partialLinkText());
+		}
+		if (!findBy.tagName().isEmpty()) {
+			return finder(How.TAG_NAME, findBy.tagName());
+		}
+		return finder(How.XPATH, findBy.xpath());
+	}
+
+	/**
+	 * @param how
+	 *            search strategy
+	 * @param using
+	 *            what to search for
+	 * @return Java expression creating the {@code By}
+	 */
+	private static String finder(final How how, final String using) {
+		switch (how) {
+		case CLASS_NAME:
+			return "org.openqa.selenium.By.className(" + literal(using) + ")";
+		case CSS:
+			return "org.openqa.selenium.By.cssSelector(" + literal(using) + ")";
+		case ID:
+			return "org.openqa.selenium.By.id(" + literal(using) + ")";
+		case LINK_TEXT:
+			return "org.openqa.selenium.By.linkText(" + literal(using) + ")";
+		case NAME:
+			return "org.openqa.selenium.By.name(" + literal(using) + ")";
+		case PARTIAL_LINK_TEXT:
+			return "org.openqa.selenium.By.partialLinkText(" + literal(using) + ")";
+		case TAG_NAME:
+			return "org.openqa.selenium.By.tagName(" + literal(using) + ")";
+		case XPATH:
+			return "org.openqa.selenium.By.xpath(" + literal(using) + ")";
+		default:
+			return "new org.openqa.selenium.support.ByIdOrName(" + literal(using) + ")";
+		}
+	}
+
+	/**
+	 * @param value
+	 *            text
+	 * @return Java string literal of the text
+	 */
+	private static String literal(final String value) {
+		StringBuilder literal = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			switch (c) {
+			case '"':
+				literal.append("\\\"");
+				break;
+			case '\\':
+				literal.append("\\\\");
+				break;
+			case '\n':
+				literal.append("\\n");
+				break;
+			case '\r':
+				literal.append("\\r");
+				break;
+			case '\t':
+				literal.append("\\t");
+				break;
+			default:
+				if (c < ' ') {
+					literal.append(String.format("\\u%04x", Integer.valueOf(c)));
+				} else {
+					literal.append(c);
+				}
+			}
+		}
+		return literal.append('"').toString();
+	}
+
+	/**
+	 * @param page
+	 *            page class
+	 * @param types
+	 *            type utilities
+	 * @return {@code true} if the page has a public constructor taking the parent page (as an {@code AbstractPage})
+	 */
+	private boolean hasParentConstructor(final TypeElement page, final Types types) {
+		TypeElement abstractPage = this.processingEnv.getElementUtils().getTypeElement(ABSTRACT_PAGE);
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(page.getEnclosedElements())) {
+			if (constructor.getModifiers().contains(Modifier.PUBLIC)
+					&& constructor.getParameters().size() == 1
+					&& types.isSameType(types.erasure(constructor.getParameters().get(0).asType()),
+							types.erasure(abstractPage.asType()))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param type
+	 *            class
+	 * @return its super class or {@code null} if there is none
+	 */
+	private static TypeElement superclass(final TypeElement type) {
+		TypeMirror superclass = type.getSuperclass();
+		if (superclass.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		return (TypeElement) ((DeclaredType) superclass).asElement();
+	}
+
+	/**
+	 * @param element
+	 *            element of a class
+	 * @return package of the element
+	 */
+	private static PackageElement packageOf(final Element element) {
+		Element enclosing = element;
+		while (enclosing.getKind() != ElementKind.PACKAGE) {
+			enclosing = enclosing.getEnclosingElement();
+		}
+		return (PackageElement) enclosing;
+	}
+
+	/**
+	 * Element field of a page.
+	 */
+	private static final class ElementField {
+		/** Name of the field. */
+		private final String name;
+		/** Name of the locator constant. */
+		private final String constant;
+		/** Is the field a list of elements? */
+		private final boolean list;
+		/** Java expression creating the {@code By}. */
+		private final String finder;
+		/** Should a list be looked up only once? */
+		private final boolean cached;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param name
+		 *            name of the field
+		 * @param constant
+		 *            name of the locator constant
+		 * @param list
+		 *            is the field a list of elements?
+		 * @param finder
+		 *            Java expression creating the {@code By}
+		 * @param cached
+		 *            should a list be looked up only once?
+		 */
+		ElementField(final String name, final String constant, final boolean list, final String finder,
+				final boolean cached) {
+			this.name = name;
+			this.constant = constant;
+			this.list = list;
+			this.finder = finder;
+			this.cached = cached;
+		}
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * This package contains the annotation processor generating the page binders at compile time.
+ */
+package com.ab.selenium.processor;
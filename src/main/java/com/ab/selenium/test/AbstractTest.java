@@ -2,28 +2,36 @@ package com.ab.selenium.test;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.net.MalformedURLException;
-import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.JavascriptExecutor;
-import org.openqa.selenium.NoSuchWindowException;
 import org.openqa.selenium.Platform;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebDriverException;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.firefox.FirefoxDriver;
-import org.openqa.selenium.firefox.FirefoxProfile;
-import org.openqa.selenium.firefox.internal.ProfilesIni;
-import org.openqa.selenium.ie.InternetExplorerDriver;
 import org.openqa.selenium.logging.LogEntries;
-import org.openqa.selenium.remote.Augmenter;
-import org.openqa.selenium.remote.DesiredCapabilities;
-import org.openqa.selenium.remote.RemoteWebDriver;
-import org.openqa.selenium.safari.SafariDriver;
+import org.testng.IHookCallBack;
+import org.testng.IHookable;
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.SkipException;
+import org.testng.TestException;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
@@ -31,8 +39,16 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Listeners;
 import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlTest;
 
 import com.ab.selenium.test.evaluation.IResultEvaluator;
+import com.ab.selenium.test.session.DriverFactory;
+import com.ab.selenium.test.session.SessionDisposer;
+import com.ab.selenium.test.session.SessionPool;
+import com.ab.selenium.test.session.SessionProvisioner;
+import com.ab.selenium.test.session.SessionRequest;
 import com.ab.selenium.util.CaptureScreenshots;
 import com.ab.selenium.util.ElementHighlighter;
 
@@ -41,30 +57,48 @@ import com.ab.selenium.util.ElementHighlighter;
  * suite parameter <b>{@code platform}</b>. <br>
  * The extending class can access the WebDriver using {@link #getDriver()}, which has the initial page loaded. <br>
  * The session is automatically started and closed. <br>
+ * Setting the test suite parameter <b>{@code reuseSession}</b> to {@code true} keeps the session open for the next test
+ * class (see {@link SessionPool}). The test suite parameter <b>{@code preProvisionedSessions}</b> opens the sessions of
+ * the upcoming test classes in the background (see {@link SessionProvisioner}). <br>
+ * The test suite parameter <b>{@code platform}</b> may list several platforms separated by commas, e.g.
+ * {@code chrome,firefox}. A session is opened for every platform and each test method runs concurrently on all of
+ * them; {@link #getDriver()} returns the driver of the platform the calling thread is working on. The test fails if it
+ * fails on any platform, the outcome per platform is logged and stored as attribute of the test result. Test methods
+ * must not share state through fields of the test class in this case. <br>
  * 
  * @see {@link AbstractPage#logStepResult(String)} to capture screenshots if the test is set to capture mode via
  *      {@link AbstractPage#setCaptureMode(boolean)} . Alternatively use
  *      {@link CaptureScreenshots#captureScreen(String)} .
  */
 @Listeners(TestListener.class)
-public abstract class AbstractTest {
+public abstract class AbstractTest implements IHookable {
 
 	/** Separate the array parameters in TestNG.xml using <b>{@code [-->]}</b> in order to split using it. */
 	private static final String DEFAULT_PARAMETER_SEPARATOR_PATTERN = "\\[-->\\]";
 
-	/** WebDriver for test. */
-	private WebDriver fDriver;
-
 	/** Screenshot store folder. */
 	private String fScreenshotStoreFolder;
 
 	/** Minimal length of a valid html page. Productive pages should be at least this long. */
 	private static final int MIN_HTML_PAGE_LENGTH = 50;
-	/** Maximal number of retries until marking as failure. */
-	private static final int MAX_RETRY_NR = 3;
 
-	/** Platform to be tested on. */
-	private PlatformTypeEnum platformTypeEnum;
+	/** Separator of the platforms in the test suite parameter {@code platform}. */
+	private static final String PLATFORM_SEPARATOR = ",";
+
+	/** Sessions used by this test, one per platform. The first one uses {@link #fContext}. */
+	private final List<PlatformSession> fSessions = new ArrayList<PlatformSession>();
+
+	/** Should the session be returned to the {@link SessionPool} instead of being quit? */
+	private boolean fReuseSession;
+
+	/** State of this test, attached to the threads running its methods by the {@link TestListener}. */
+	private final ExecutionContext fContext = new ExecutionContext();
+
+	/**
+	 * Threads working on the platforms concurrently, one per platform. Only used with several platforms, shut down
+	 * after the test class.
+	 */
+	private ExecutorService fPlatformExecutor;
 
 	/**
 	 * This method is run before the test. It opens the {@link webSite} in the {@link browser} and preconfigures the
@@ -73,11 +107,14 @@ public abstract class AbstractTest {
 	 * {@link #ensurePreConditions()} needs to be overwritten.
 	 * 
 	 * @param gridServer
-	 *            Selenium Grid server to run on (may be omitted to execute the test locally)
+	 *            Selenium Grid server to run on (may be omitted to execute the test locally). Several hubs can be
+	 *            listed separated by commas, each as {@code host} or {@code host:port}; the session is started on the
+	 *            least loaded one (see {@link com.ab.selenium.test.session.GridHubRouter GridHubRouter}).
 	 * @param driverPath
 	 *            path to the driver executable for local test execution. Not all drivers need it.
 	 * @param platform
-	 *            testing platform to be used. It's mainly used for browsers. See {@link PlatformTypeEnum}.
+	 *            testing platform to be used. It's mainly used for browsers. See {@link PlatformTypeEnum}. Several
+	 *            platforms can be listed separated by commas to run the test on all of them concurrently.
 	 * @param operatingSystem
 	 *            default: WINDOWS, should something different be used, this value can override it. Make sure to use the
 	 *            same platform as used in node.json configuration. For allowed values see {@link Platform}
@@ -85,120 +122,112 @@ public abstract class AbstractTest {
 	 *            the start website to open in the browser
 	 * @param screenshotStoreFolder
 	 *            the folder to store images
+	 * @param reuseSession
+	 *            {@code true} to take the session from the {@link SessionPool} and return it there after the test class
+	 *            instead of starting and quitting a browser for every test class
+	 * @param preProvisionedSessions
+	 *            number of sessions for the upcoming test classes of the suite to be opened in the background (see
+	 *            {@link SessionProvisioner}). {@code 0} opens each session when the test class starts.
+	 * @param context
+	 *            test context, used to find the upcoming test classes of the suite
 	 * @throws MalformedURLException
 	 *             if the gridServer parameter is not correct
 	 */
 
 	@BeforeClass(groups = { "default" }, alwaysRun = true)
-	@Parameters({ "gridServer", "port", "driverPath", "os", "platform", "testTarget", "screenshotStoreFolder" })
-	protected final void startSession(@Optional("") final String gridServer, @Optional("4444") final String port,
-			@Optional() final String driverPath, @Optional("WINDOWS") final String operatingSystem,
-			final String platform, final String testTarget, final String screenshotStoreFolder)
+	@Parameters({ "gridServer", "port", "driverPath", "os", "platform", "testTarget", "screenshotStoreFolder",
+			"reuseSession", "preProvisionedSessions" })
+	protected final void startSession(@Optional(SessionRequest.DEFAULT_GRID_SERVER) final String gridServer,
+			@Optional(SessionRequest.DEFAULT_PORT) final String port, @Optional() final String driverPath,
+			@Optional(SessionRequest.DEFAULT_OPERATING_SYSTEM) final String operatingSystem, final String platform,
+			final String testTarget, final String screenshotStoreFolder, @Optional("false") final String reuseSession,
+			@Optional("0") final String preProvisionedSessions, final ITestContext context)
 			throws MalformedURLException {
 
 		this.fScreenshotStoreFolder = screenshotStoreFolder;
+		ExecutionContext.attach(this.fContext);
 		// do the @pre
 		ensurePreConditions();
 
-		// initialise driver
-		DesiredCapabilities capabilities;
-		this.platformTypeEnum = PlatformTypeEnum.getByName(platform);
-
-		switch (this.platformTypeEnum) {
-		case CHROME:
-			capabilities = DesiredCapabilities.chrome();
-			// multiple platforms (operating systems) possible
-			capabilities.setPlatform(Platform.valueOf(operatingSystem));
-			if (useGridServer(gridServer)) {
-				setDriver(new RemoteWebDriver(getGridServerURL(gridServer, port), capabilities));
-				// add capture screenshot capabilities
-				augmentRemoteWebDriverCapabilities();
-			} else {
-				applyDriver("webdriver.chrome.driver", driverPath);
-				// capabilities.setCapability("chrome.nativeEvents", true);
-				ChromeDriver chromeDriver = new ChromeDriver(capabilities);
-				setDriver(chromeDriver);
+		this.fReuseSession = Boolean.parseBoolean(reuseSession);
+		this.fSessions.clear();
+		for (String platformName : platform.split(PLATFORM_SEPARATOR)) {
+			PlatformTypeEnum platformType = PlatformTypeEnum.getByName(platformName.trim());
+			if (platformType == null) {
+				throw new IllegalArgumentException("Unknown platform [" + platformName + "]");
 			}
-			break;
-
-		case SAFARI:
-			capabilities = DesiredCapabilities.safari();
-			// capabilities.setCapability(SafariDriver.CLEAN_SESSION_CAPABILITY, true);
-			// multiple platforms (operating systems) possible
-			capabilities.setPlatform(Platform.MAC);
-			if (useGridServer(gridServer)) {
-				// File safariExecutable = new File("C:\\Program Files (x86)\\Safari");
-				// System.setProperty("SafariDefaultPath", safariExecutable.getAbsolutePath());
-				for (int i = 1; i <= MAX_RETRY_NR; i++) {
-					try {
-						setDriver(new RemoteWebDriver(getGridServerURL(gridServer, port), capabilities));
-						break;
-					} catch (WebDriverException e) {
-						if (i == MAX_RETRY_NR) {
-							throw e;
+			ExecutionContext platformContext = this.fSessions.isEmpty() ? this.fContext : new ExecutionContext();
+			this.fSessions.add(new PlatformSession(new SessionRequest(gridServer, port, driverPath, operatingSystem,
+					platformType, testTarget), platformContext));
+		}
+		SessionProvisioner.INSTANCE.configure(getUpcomingSessionRequests(context),
+				Integer.parseInt(preProvisionedSessions));
+
+		if (this.fSessions.size() == 1) {
+			openSession(this.fSessions.get(0));
+			return;
+		}
+		// open the sessions of all platforms at the same time
+		this.fPlatformExecutor = Executors.newFixedThreadPool(this.fSessions.size());
+		try {
+			List<Future<Void>> openings = new ArrayList<Future<Void>>();
+			for (final PlatformSession session : this.fSessions) {
+				openings.add(this.fPlatformExecutor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws MalformedURLException {
+						ExecutionContext.attach(session.context);
+						try {
+							openSession(session);
+						} finally {
+							ExecutionContext.detach();
 						}
-						Logger.logStepResult("Retrying again to create new web driver", false);
+						return null;
 					}
-				}
-				// add capture screenshot capabilities
-				augmentRemoteWebDriverCapabilities();
-			} else {
-				// File safariExecutable = new File("D:\\Programs\\Safari\\Safari.exe");
-				// if (safariExecutable.exists()) {
-				// System.setProperty("SafariDefaultPath", safariExecutable.getAbsolutePath());
-				// }
-				setDriver(new SafariDriver(capabilities));
+				}));
 			}
-			break;
-
-		case FIREFOX:
-			capabilities = DesiredCapabilities.firefox();
-			// multiple platforms (operating systems) possible
-			capabilities.setPlatform(Platform.valueOf(operatingSystem));
-			ProfilesIni allProfiles = new ProfilesIni();
-			FirefoxProfile profile = allProfiles.getProfile("default");
-			profile.setAcceptUntrustedCertificates(true);
-//			profile.setEnableNativeEvents(true);
-			capabilities.setCapability(FirefoxDriver.PROFILE, profile);
-
-			if (useGridServer(gridServer)) {
-				// capabilities.setCapability(FirefoxDriver.PROFILE, "WebDriver");
-				setDriver(new RemoteWebDriver(getGridServerURL(gridServer, port), capabilities));
-				// add capture screenshot capabilities
-				augmentRemoteWebDriverCapabilities();
-			} else {
-				setDriver(new FirefoxDriver(capabilities));
+			for (Future<Void> opening : openings) {
+				try {
+					opening.get();
+				} catch (ExecutionException e) {
+					rethrow(e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while opening the sessions.", e);
+				}
 			}
-			break;
-		case IE:
-		default:
-			capabilities = DesiredCapabilities.internetExplorer();
-			capabilities.setPlatform(Platform.valueOf(operatingSystem));
-			capabilities.setCapability(InternetExplorerDriver.INTRODUCE_FLAKINESS_BY_IGNORING_SECURITY_DOMAINS, true);
-			capabilities.setCapability(InternetExplorerDriver.IE_ENSURE_CLEAN_SESSION, true);
-			capabilities.setCapability("requireWindowFocus", true);
-			capabilities.setCapability("enablePersistentHover", false);
-
-			if (useGridServer(gridServer)) {
-				// InternetExplorerDriverService service = new
-				// InternetExplorerDriverService.Builder().usingPort(4444).withHost(gridServer).build();
-
-				setDriver(new RemoteWebDriver(getGridServerURL(gridServer, port), capabilities));
-				// setDriver(new InternetExplorerDriver(service, capabilities));
-				// add capture screenshot capabilities
-				augmentRemoteWebDriverCapabilities();
-			} else {
-				applyDriver("webdriver.ie.driver", driverPath);
+		} finally {
+			ExecutionContext.attach(this.fContext);
+		}
+	}
 
-				setDriver(new InternetExplorerDriver(capabilities));
-			}
-			break;
+	/**
+	 * Open the session for one platform. The context of the session must be attached to the current thread.
+	 * 
+	 * @param session
+	 *            session to open
+	 * @throws MalformedURLException
+	 *             if the gridServer parameter is not correct
+	 */
+	private void openSession(final PlatformSession session) throws MalformedURLException {
+		SessionRequest request = session.request;
+		PlatformTypeEnum platformType = request.getPlatformType();
+
+		// initialise driver
+		WebDriver pooledDriver = this.fReuseSession ? SessionPool.INSTANCE.acquire(request.getKey()) : null;
+		WebDriver provisionedDriver = null;
+		if (pooledDriver != null) {
+			// frees the provisioning slot and quits the session provisioned for nothing
+			SessionProvisioner.INSTANCE.withdraw(request);
+			setDriver(pooledDriver);
+		} else {
+			provisionedDriver = SessionProvisioner.INSTANCE.claim(request);
+			setDriver(provisionedDriver != null ? provisionedDriver : DriverFactory.createDriver(request));
 		}
 		checkPreConditions();
 
 		// make the driver known to the Browser Url at the test failures
 		BrowserLogger.INSTANCE.setDriver(getDriver());
-		BrowserLogger.INSTANCE.setPlatformType(this.platformTypeEnum);
+		BrowserLogger.INSTANCE.setPlatformType(platformType);
 		// make the driver known to the ElementHighlighter
 		ElementHighlighter.INSTANCE.setDriver(getDriver());
 		// reset the logger
@@ -207,21 +236,195 @@ public abstract class AbstractTest {
 		// make the driver known to the CaptureScreenshots
 		CaptureScreenshots.INSTANCE.setDriver(getDriver());
 
-		if (this.platformTypeEnum.isWeb().booleanValue()) {
+		if (pooledDriver != null) {
+			// a pooled session has already been maximised and cleaned up
+			if (platformType.isWeb().booleanValue()) {
+				// now open the web site
+				getDriver().get(request.getTestTarget());
+			}
+		} else if (provisionedDriver == null) {
+			DriverFactory.prepareSession(getDriver(), request);
+		}
 
-			// setupScreenToSize(new Dimension(browserWindowWidth, browserWindowHeight));
-			if (this.platformTypeEnum.isMaximizable().booleanValue()) {
-				maximiseWindow();
+	}
+
+	/**
+	 * Run the test method. With several platforms the method runs concurrently on every platform, each thread with the
+	 * context of its platform attached, and each run going through TestNG's own invocation of the method. The outcome
+	 * per platform is stored as attribute of the test result, named after the platform.<br>
+	 * The test fails with the failure of the first failing platform, thrown unchanged, so that TestNG applies the
+	 * expected exceptions to it. The failures of the other platforms are added to it as suppressed exceptions. The test
+	 * is skipped if it has been skipped on a platform and failed on none.
+	 * 
+	 * @param callBack
+	 *            runs the test method the usual way
+	 * @param testResult
+	 *            result of the test method
+	 */
+	@Override
+	public void run(final IHookCallBack callBack, final ITestResult testResult) {
+		if (this.fSessions.size() <= 1) {
+			callBack.runTestMethod(testResult);
+			return;
+		}
+		final Method method = testResult.getMethod().getConstructorOrMethod().getMethod();
+		Map<PlatformTypeEnum, Future<Throwable>> runs = new LinkedHashMap<PlatformTypeEnum, Future<Throwable>>();
+		for (final PlatformSession session : this.fSessions) {
+			runs.put(session.request.getPlatformType(), this.fPlatformExecutor.submit(new Callable<Throwable>() {
+				@Override
+				public Throwable call() {
+					return runOnPlatform(session, callBack, method, testResult);
+				}
+			}));
+		}
+
+		List<String> passed = new ArrayList<String>();
+		List<Throwable> failures = new ArrayList<Throwable>();
+		Throwable skip = null;
+		for (Map.Entry<PlatformTypeEnum, Future<Throwable>> run : runs.entrySet()) {
+			Throwable failure;
+			try {
+				failure = run.getValue().get();
+			} catch (ExecutionException e) {
+				failure = e.getCause();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failure = e;
+			}
+			String platformName = run.getKey().name();
+			String outcome;
+			if (failure == null) {
+				outcome = "passed";
+				passed.add(platformName);
+			} else if (failure instanceof SkipException) {
+				outcome = "skipped: " + failure;
+				skip = skip == null ? failure : skip;
+			} else {
+				outcome = "failed: " + failure;
+				failures.add(failure);
 			}
+			testResult.setAttribute(platformName, outcome);
+			Logger.logStepResult("[" + platformName + "] " + method.getName() + " " + outcome, false);
+		}
 
-			// delete cookies
-			deleteCookies(testTarget);
+		Test test = method.getAnnotation(Test.class);
+		if (!failures.isEmpty() && !passed.isEmpty() && test != null && test.expectedExceptions().length > 0) {
+			// the expected exception of the other platforms would let the test pass
+			throw new TestException("Method " + method.getName() + " should have thrown an exception of "
+					+ Arrays.toString(test.expectedExceptions()) + " on " + passed);
+		}
+		if (!failures.isEmpty()) {
+			Throwable firstFailure = failures.get(0);
+			for (Throwable failure : failures.subList(1, failures.size())) {
+				firstFailure.addSuppressed(failure);
+			}
+			AbstractTest.<RuntimeException> throwUnchanged(firstFailure);
+		}
+		if (skip != null) {
+			AbstractTest.<RuntimeException> throwUnchanged(skip);
+		}
+	}
+
+	/**
+	 * Run the test method on one platform through the call back of TestNG.
+	 * 
+	 * @param session
+	 *            session of the platform
+	 * @param callBack
+	 *            runs the test method the usual way
+	 * @param method
+	 *            test method
+	 * @param testResult
+	 *            result of the test method, shared by all platforms
+	 * @return the exception thrown by the test method or {@code null} if the method has passed
+	 */
+	private Throwable runOnPlatform(final PlatformSession session, final IHookCallBack callBack,
+			final Method method, final ITestResult testResult) {
+		ExecutionContext.attach(session.context);
+		Reporter.setCurrentTestResult(testResult);
+		try {
+			// screenshots of each platform go to their own folder
+			initScreenshotFolder(this.fScreenshotStoreFolder + File.separator
+					+ session.request.getPlatformType().name(), method);
+			PlatformResult platformResult = new PlatformResult(testResult);
+			callBack.runTestMethod((ITestResult) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { ITestResult.class }, platformResult));
+			Throwable failure = platformResult.fThrowable;
+			if (failure instanceof InvocationTargetException) {
+				failure = failure.getCause();
+			}
+			if (failure != null && !(failure instanceof SkipException)) {
+				try {
+					CaptureScreenshots.INSTANCE.captureScreen("test failure");
+				} catch (IOException | RuntimeException captureFailure) {
+					// the failure of the test is more important
+					Logger.logStepResult("Unable to capture the failure: " + captureFailure, false);
+				}
+			}
+			return failure;
+		} finally {
+			Reporter.setCurrentTestResult(null);
+			ExecutionContext.detach();
+		}
+	}
 
-			// now open the web site
-			getDriver().get(testTarget);
+	/**
+	 * Throw the exception of a test method unchanged, even if it is a checked one, as if TestNG had invoked the method
+	 * itself.
+	 * 
+	 * @param failure
+	 *            exception thrown by the test method
+	 * @param <T>
+	 *            type the compiler assumes for the exception
+	 * @throws T
+	 *             always the failure
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends Throwable> void throwUnchanged(final Throwable failure) throws T {
+		throw (T) failure;
+	}
 
+	/**
+	 * Rethrow the failure of opening a session unchanged.
+	 * 
+	 * @param failure
+	 *            failure thrown while opening a session
+	 * @throws MalformedURLException
+	 *             if it is the failure
+	 */
+	private static void rethrow(final Throwable failure) throws MalformedURLException {
+		if (failure instanceof MalformedURLException) {
+			throw (MalformedURLException) failure;
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
 		}
+		throw new IllegalStateException(failure);
+	}
 
+	/**
+	 * Collect the sessions the suite is going to request: one per platform for each test class extending
+	 * {@link AbstractTest}, in the order of the test suite definition.
+	 * 
+	 * @param context
+	 *            test context
+	 * @return requests created from the test parameters
+	 */
+	private static List<SessionRequest> getUpcomingSessionRequests(final ITestContext context) {
+		List<SessionRequest> requests = new ArrayList<SessionRequest>();
+		for (XmlTest xmlTest : context.getSuite().getXmlSuite().getTests()) {
+			List<SessionRequest> testRequests = SessionRequest.fromParameters(xmlTest.getAllParameters());
+			for (XmlClass xmlClass : xmlTest.getXmlClasses()) {
+				if (xmlClass.getSupportClass() != null
+						&& AbstractTest.class.isAssignableFrom(xmlClass.getSupportClass())) {
+					requests.addAll(testRequests);
+				}
+			}
+		}
+		return requests;
 	}
 
 	/**
@@ -295,7 +498,8 @@ public abstract class AbstractTest {
 	}
 
 	/**
-	 * To execute something after tests. Default implementation checks does nothing. Override to do something.
+	 * To execute something after tests. Default implementation checks does nothing. Override to do something. With
+	 * several platforms it is called once, with the driver of the first platform.
 	 */
 	public void cleanAfterTests() {
 	}
@@ -319,42 +523,6 @@ public abstract class AbstractTest {
 
 	}
 
-	/**
-	 * Verifies that the driver is available under the defined path and sets the system property. Used for local
-	 * execution of tests.
-	 * 
-	 * @param driverProperty
-	 *            property as required by the driver
-	 * @param driverPath
-	 *            path to the driver executable
-	 */
-	private static void applyDriver(final String driverProperty, final String driverPath) {
-		if (driverPath != null && driverPath.trim().length() > 0) {
-			File serverDriverFile = new File(driverPath);
-			// the parameter was set
-			if (serverDriverFile.exists()) {
-				// can access the file
-				System.setProperty(driverProperty, driverPath);
-			} else {
-				throw new RuntimeException("Cannot access driver '" + driverProperty + "' with path ["
-						+ serverDriverFile.getAbsolutePath() + "]");
-			}
-		}
-	}
-
-	/**
-	 * RemoteWebDriver does not implement the {@link org.openqa.selenium.TakesScreenshot TakesScreenshot} class if the
-	 * driver does have the Capabilities to take a screenshot then Augmenter will add the TakesScreenshot methods to the
-	 * instance.
-	 * 
-	 * @see org.openqa.selenium.remote.Augmenter
-	 */
-	private void augmentRemoteWebDriverCapabilities() {
-		WebDriver augmentedDriver = new Augmenter().augment(getDriver());
-		// now store for further usage
-		setDriver(augmentedDriver);
-	}
-
 	/**
 	 * Opens a new window and calls the parameter url. The result is evaluated using {@link IResultEvaluator}
 	 * 
@@ -394,32 +562,6 @@ public abstract class AbstractTest {
 		getDriver().switchTo().window(getDriver().getWindowHandles().iterator().next());
 	}
 
-	/**
-	 * Generate URL for Selenium Grid Server.
-	 * 
-	 * @param gridServer
-	 *            Selenium Grid server name
-	 * @param port
-	 *            Selenium Grid server port
-	 * @return URL to communicate with hub
-	 * @throws MalformedURLException
-	 *             if the URL has errors
-	 */
-	private static URL getGridServerURL(final String gridServer, final String port) throws MalformedURLException {
-		return new URL("http://" + gridServer + ":" + port + "/wd/hub");
-	}
-
-	/**
-	 * Verify that the Selenium Grid server should be used based on the parameter.
-	 * 
-	 * @param gridServer
-	 *            the name of the Grid Server
-	 * @return {@code true} if the parameter is not {@code null} and not empty
-	 */
-	private static boolean useGridServer(final String gridServer) {
-		return gridServer != null && gridServer.trim().length() > 0;
-	}
-
 	/**
 	 * Set the browser window to size provided by the parameter.
 	 * 
@@ -435,53 +577,54 @@ public abstract class AbstractTest {
 	 * Expands the opened browser window to full screen.
 	 */
 	protected final void maximiseWindow() {
-		// ((JavascriptExecutor) getDriver())
-		// .executeScript("window.moveTo(0,0); window.resizeTo(screen.width,screen.height);");
-		getDriver().manage().window().maximize();
+		DriverFactory.maximiseWindow(getDriver());
 	}
 
 	/**
-	 * Always close the session after the tests.
+	 * Always close the session after the tests. A reused session is returned to the {@link SessionPool} instead. With
+	 * several platforms every session is closed this way, each with its context attached, but
+	 * {@link #cleanAfterTests()} is called only once, with the first platform. The threads working on the platforms
+	 * are shut down afterwards.
 	 */
-	@SuppressWarnings("static-access")
 	@AfterClass(groups = { "default" }, alwaysRun = true)
 	protected final void closeSession() {
+		try {
+			for (PlatformSession session : this.fSessions) {
+				ExecutionContext.attach(session.context);
+				closeSession(session);
+			}
+		} finally {
+			ExecutionContext.attach(this.fContext);
+			if (this.fPlatformExecutor != null) {
+				this.fPlatformExecutor.shutdown();
+				this.fPlatformExecutor = null;
+			}
+		}
+	}
+
+	/**
+	 * Close the session of one platform. The context of the session must be attached to the current thread.
+	 * 
+	 * @param session
+	 *            session to close
+	 */
+	private void closeSession(final PlatformSession session) {
 		// screenshots functionality must be present even if everything failed
 		initCaptureScreenshot();
-		// hook to execute something before closing everything
-		cleanAfterTests();
-		Logger.INSTANCE.logStepResult("Closing session.", false);
+		if (session == this.fSessions.get(0)) {
+			// hook to execute something before closing everything, once per test class
+			cleanAfterTests();
+		}
 		CaptureScreenshots.INSTANCE.resetCounter();
-		if (getDriver() != null && getDriver().getWindowHandles() != null) {
-			// driver has been successfully initialised and something is still open
-			for (String windowHandle : getDriver().getWindowHandles()) {
-				try {
-					getDriver().switchTo().window(windowHandle);
-					Logger.logStepResult("Closing window " + windowHandle, Boolean.FALSE);
-					getDriver().close();
-					Logger.logStepResult("Closed window " + windowHandle, Boolean.FALSE);
-				} catch (NoSuchWindowException e) {
-					// do nothing
-					Logger.logStepResult("failed to close the window", Boolean.FALSE);
-				}
-			}
-			try {
-				// waiting for close to take effect before quitting (https://bugzilla.mozilla.org/show_bug.cgi?id=1027222)
-				Logger.logStepResult("waiting for 3 secs before terminating the session.", Boolean.FALSE);
-				Thread.sleep(3000L);
-			} catch( InterruptedException e) {
-				// do nothing
-				Logger.logStepResult("interrupted while waiting", Boolean.FALSE);
-			}
-			Logger.logStepResult("Quitting session.", Boolean.FALSE);
-			try {
-				getDriver().quit();
-			} catch (WebDriverException e) {
-				// driver seems to be dead already, but I don't care
-				Logger.logStepResult("driver.quit was not successfully sent", Boolean.FALSE);
-			}
+		if (this.fReuseSession) {
+			Logger.logStepResult("Releasing session.", false);
+			SessionPool.INSTANCE.release(session.request.getKey(), getDriver());
+			return;
 		}
-		Logger.INSTANCE.logStepResult("Session closed.", Boolean.FALSE);
+		Logger.logStepResult("Closing session.", false);
+		// windows are closed and the session is quit in the background
+		SessionDisposer.INSTANCE.dispose(getDriver());
+		Logger.logStepResult("Session handed over for closing.", Boolean.FALSE);
 	}
 
 	/**
@@ -490,37 +633,55 @@ public abstract class AbstractTest {
 	 * @param testTarget
 	 *            url to navigate to. Needed to delete cookies in some browsers.
 	 */
-	@SuppressWarnings("fallthrough")
 	public final void deleteCookies(final String testTarget) {
 		if (getDriver() == null) {
 			return;
 		}
-		switch (this.platformTypeEnum) {
-		case SAFARI:
-			getDriver().get(testTarget);
-		default:
-			getDriver().manage().deleteAllCookies();
-		}
+		DriverFactory.deleteCookies(getDriver(), currentContext().getPlatformType(), testTarget);
 	}
 
 	/**
-	 * Get {@link #fDriver}.
+	 * Get the driver of the platform the current thread is working on.
 	 * 
 	 * @return driver
 	 */
 	public final WebDriver getDriver() {
-		return this.fDriver;
+		return currentContext().getDriver();
 	}
 
 	/**
-	 * Set {@link #fDriver}. Used to call a test from another test.
+	 * Get the state of this test. It carries the driver, screenshot folder and logging clock used by the utilities.
+	 * 
+	 * @return context of this test
+	 */
+	public final ExecutionContext getExecutionContext() {
+		return this.fContext;
+	}
+
+	/**
+	 * Set the driver of the platform the current thread is working on. Used to call a test from another test.
 	 * 
 	 * @param driver
 	 *            the {@link WebDriver} to set
 	 */
 	public final void setDriver(final WebDriver driver) {
-		this.fDriver = driver;
-		this.fDriver.manage().timeouts().pageLoadTimeout(5, TimeUnit.MINUTES);
+		currentContext().setDriver(driver);
+		driver.manage().timeouts().pageLoadTimeout(5, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Get the context of the platform the current thread is working on.
+	 * 
+	 * @return the context attached to the current thread if it belongs to this test, {@link #fContext} otherwise
+	 */
+	private ExecutionContext currentContext() {
+		ExecutionContext current = ExecutionContext.current();
+		for (PlatformSession session : this.fSessions) {
+			if (session.context == current) {
+				return current;
+			}
+		}
+		return this.fContext;
 	}
 
 	/**
@@ -534,4 +695,64 @@ public abstract class AbstractTest {
 		return concatenatedParameters.split(DEFAULT_PARAMETER_SEPARATOR_PATTERN + "+");
 	}
 
+	/**
+	 * Session of one platform with the context the test uses on it.
+	 */
+	private static final class PlatformSession {
+		/** Request the session is opened for. */
+		private final SessionRequest request;
+		/** Context of the test on this platform. */
+		private final ExecutionContext context;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param request
+		 *            request the session is opened for
+		 * @param context
+		 *            context of the test on this platform
+		 */
+		PlatformSession(final SessionRequest request, final ExecutionContext context) {
+			this.request = request;
+			this.context = context;
+		}
+	}
+
+	/**
+	 * Result of the test method on one platform. Keeps the exception of the platform, while everything else is
+	 * delegated to the result of the test method shared by all platforms.
+	 */
+	private static final class PlatformResult implements InvocationHandler {
+		/** Result of the test method, shared by all platforms. */
+		private final ITestResult fTestResult;
+		/** Exception thrown on this platform. */
+		private volatile Throwable fThrowable;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param testResult
+		 *            result of the test method, shared by all platforms
+		 */
+		PlatformResult(final ITestResult testResult) {
+			this.fTestResult = testResult;
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+			if ("setThrowable".equals(method.getName())) {
+				this.fThrowable = (Throwable) args[0];
+				return null;
+			}
+			if ("getThrowable".equals(method.getName())) {
+				return this.fThrowable;
+			}
+			try {
+				return method.invoke(this.fTestResult, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
 }
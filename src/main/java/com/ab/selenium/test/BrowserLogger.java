@@ -10,17 +10,13 @@ import com.ab.selenium.util.RenewableWebElement;
 
 /**
  * Use this enum to log URL at the time of test failure.<br>
- * An enum is used for implementation in order to make it a thread safe and serializable singleton.
+ * An enum is used for implementation in order to make it a thread safe and serializable singleton. The driver and the
+ * platform are kept in the {@link ExecutionContext} of the current thread.
  */
 public enum BrowserLogger {
 	/** The only instance of the logger. */
 	INSTANCE;
 
-	/** WebDriver set to capture the screen. */
-	private WebDriver fDriver;
-	/** Platform used. */
-	private PlatformTypeEnum fPlatformType;
-
 	/**
 	 * Set the WebDriver, which is going to be used.
 	 * 
@@ -28,7 +24,7 @@ public enum BrowserLogger {
 	 *            displaying the page.
 	 */
 	public void setDriver(final WebDriver driver) {
-		this.fDriver = driver;
+		ExecutionContext.current().setDriver(driver);
 	}
 
 	/**
@@ -42,11 +38,15 @@ public enum BrowserLogger {
 	 *             if WebDriver fails to capture the URL.
 	 */
 	public void logUrl(final String url, final boolean captureScreenshot) throws OperationNotSupportedException {
+		WebDriver driver = ExecutionContext.current().getDriver();
+		if (driver == null) {
+			throw new OperationNotSupportedException();
+		}
 		if (url != null && url.length() > 0) {
-			this.fDriver.navigate().to(url);
+			driver.navigate().to(url);
 		}
 		try {
-			Logger.logStepResult("Url:[" + this.fDriver.getCurrentUrl() + "]", captureScreenshot);
+			Logger.logStepResult("Url:[" + driver.getCurrentUrl() + "]", captureScreenshot);
 		} catch (WebDriverException e) {
 			throw new OperationNotSupportedException();
 		}
@@ -96,7 +96,7 @@ public enum BrowserLogger {
 	 * @return {@link PlatformTypeEnum}
 	 */
 	public final PlatformTypeEnum getPlatformType() {
-		return this.fPlatformType;
+		return ExecutionContext.current().getPlatformType();
 	}
 
 	/**
@@ -106,6 +106,6 @@ public enum BrowserLogger {
 	 *            platform
 	 */
 	public void setPlatformType(final PlatformTypeEnum platformType) {
-		this.fPlatformType = platformType;
+		ExecutionContext.current().setPlatformType(platformType);
 	}
 }
@@ -0,0 +1,167 @@
+package com.ab.selenium.test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * State of one test execution: the driver, the screenshot folder and counter and the logging clock. The utilities
+ * ({@link Logger}, {@link BrowserLogger}, {@link com.ab.selenium.util.CaptureScreenshots CaptureScreenshots},
+ * {@link com.ab.selenium.util.ElementHighlighter ElementHighlighter}) resolve against the context attached to the
+ * current thread, so several browsers can be driven concurrently within one JVM.<br>
+ * Every {@link AbstractTest} owns a context, which is attached to the thread running its configuration and test
+ * methods by the {@link TestListener}. Threads without an attached context get their own one on first access.
+ */
+public final class ExecutionContext {
+
+	/** Context attached to the current thread. */
+	private static final ThreadLocal<ExecutionContext> CURRENT = new ThreadLocal<ExecutionContext>() {
+		@Override
+		protected ExecutionContext initialValue() {
+			return new ExecutionContext();
+		}
+	};
+
+	/** WebDriver used by the test. */
+	private WebDriver fDriver;
+	/** Platform the test is being executed on. */
+	private PlatformTypeEnum fPlatformType;
+	/** Directory for screenshots. */
+	private File fOutputDir = new File(System.getProperty("java.io.tmpdir"));
+	/** An index for the next picture to be captured. */
+	private int fCaptureIndex = 0;
+	/** capture screenshots mode. */
+	private Boolean fCaptureMode = Boolean.TRUE;
+	/** start time of the test. */
+	private long fStartTimeMillis = System.currentTimeMillis();
+	/** Original styles of the highlighted elements. */
+	private final Map<By, String> fHighlightedStyles = new HashMap<By, String>();
+
+	/**
+	 * Get the context attached to the current thread.
+	 *
+	 * @return context, never {@code null}
+	 */
+	public static ExecutionContext current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Attach the context to the current thread. All utilities called from this thread resolve against it afterwards.
+	 *
+	 * @param context
+	 *            context to attach
+	 */
+	public static void attach(final ExecutionContext context) {
+		CURRENT.set(context);
+	}
+
+	/**
+	 * Remove the context from the current thread.
+	 */
+	public static void detach() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * @return the driver or {@code null} if not yet set
+	 */
+	public synchronized WebDriver getDriver() {
+		return this.fDriver;
+	}
+
+	/**
+	 * @param driver
+	 *            the driver to set
+	 */
+	public synchronized void setDriver(final WebDriver driver) {
+		this.fDriver = driver;
+	}
+
+	/**
+	 * @return the platform the test is being executed on
+	 */
+	public synchronized PlatformTypeEnum getPlatformType() {
+		return this.fPlatformType;
+	}
+
+	/**
+	 * @param platformType
+	 *            the platform to set
+	 */
+	public synchronized void setPlatformType(final PlatformTypeEnum platformType) {
+		this.fPlatformType = platformType;
+	}
+
+	/**
+	 * @return directory for screenshots
+	 */
+	public synchronized File getOutputDir() {
+		return this.fOutputDir;
+	}
+
+	/**
+	 * @param outputDir
+	 *            directory for screenshots
+	 */
+	public synchronized void setOutputDir(final File outputDir) {
+		this.fOutputDir = outputDir;
+	}
+
+	/**
+	 * Get the index for the next picture and increase it.
+	 *
+	 * @return index for the next picture
+	 */
+	public synchronized int nextCaptureIndex() {
+		return this.fCaptureIndex++;
+	}
+
+	/**
+	 * Reset the screenshot counter.
+	 */
+	public synchronized void resetCaptureIndex() {
+		this.fCaptureIndex = 0;
+	}
+
+	/**
+	 * @return the capture mode
+	 */
+	public synchronized Boolean getCaptureMode() {
+		return this.fCaptureMode;
+	}
+
+	/**
+	 * @param captureMode
+	 *            the capture mode to set
+	 */
+	public synchronized void setCaptureMode(final Boolean captureMode) {
+		this.fCaptureMode = captureMode;
+	}
+
+	/**
+	 * @return start time of the test (in milliseconds)
+	 */
+	public synchronized long getStartTimeMillis() {
+		return this.fStartTimeMillis;
+	}
+
+	/**
+	 * Restart the logging clock.
+	 */
+	public synchronized void resetStartTime() {
+		this.fStartTimeMillis = System.currentTimeMillis();
+	}
+
+	/**
+	 * Original styles of the elements highlighted in this context. Keys are the search terms of the elements.
+	 *
+	 * @return modifiable map, to be accessed from the thread the context is attached to
+	 */
+	public Map<By, String> getHighlightedStyles() {
+		return this.fHighlightedStyles;
+	}
+}
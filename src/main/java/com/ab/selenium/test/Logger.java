@@ -10,19 +10,15 @@ import com.ab.selenium.util.CaptureScreenshots;
 
 /**
  * Use this enum to log messages. An enum is used for implementation in order to make it a threadsafe and serializable
- * singleton.
+ * singleton. The capture mode and the clock are kept in the {@link ExecutionContext} of the current thread.
  */
 public enum Logger {
 	INSTANCE;
 
 	// /** Time to sleep after a log entry. In milliseconds. */
 	// private static final Long TIME_TO_SLEEP = 1000L;
-	/** capture screenshots mode. */
-	private Boolean isCaptureMode = Boolean.TRUE;
 	/** format to print out the time. */
 	private static String timeFormat = "%02d:%02d:%02d:%03d";
-	/** start time of the test. */
-	private static long startTimeMillis;
 
 	/**
 	 * {@code Boolean.TRUE} means that the logging is done via screenshots.<br />
@@ -32,7 +28,7 @@ public enum Logger {
 	 *            the captureMode to set
 	 */
 	public void setCaptureMode(final Boolean captureMode) {
-		this.isCaptureMode = captureMode;
+		ExecutionContext.current().setCaptureMode(captureMode);
 	}
 
 	/**
@@ -40,7 +36,7 @@ public enum Logger {
 	 */
 	public static void reset() {
 		CaptureScreenshots.INSTANCE.resetCounter();
-		startTimeMillis = System.currentTimeMillis();
+		ExecutionContext.current().resetStartTime();
 	}
 
 	/**
@@ -51,10 +47,11 @@ public enum Logger {
 	 *            used for log or as file suffix
 	 */
 	public void logStepResult(final String message) {
-		if (this.isCaptureMode == null) {
+		Boolean captureMode = ExecutionContext.current().getCaptureMode();
+		if (captureMode == null) {
 			throw new IllegalStateException("The capture mode has not yet been set.");
 		}
-		logStepResult(message, this.isCaptureMode);
+		logStepResult(message, captureMode);
 	}
 
 	/**
@@ -70,7 +67,9 @@ public enum Logger {
 	}
 
 	private static String getRelativeTime() {
-		long timeDifference = System.currentTimeMillis() - startTimeMillis;
+		// the context is created on first use, so its start must be read before the current time
+		long startTimeMillis = ExecutionContext.current().getStartTimeMillis();
+		long timeDifference = Math.max(0L, System.currentTimeMillis() - startTimeMillis);
 		long hours, minutes, seconds, millis, rest;
 		hours = TimeUnit.MILLISECONDS.toHours(timeDifference);
 		rest = timeDifference - TimeUnit.HOURS.toMillis(hours);
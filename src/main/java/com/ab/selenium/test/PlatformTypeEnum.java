@@ -23,6 +23,9 @@ public enum PlatformTypeEnum {
 	/** Google Chrome. **/
 	CHROME("chrome", Boolean.TRUE, Boolean.TRUE),
 
+	/** Google Chrome without a visible window, rendering into a fixed viewport. **/
+	CHROME_HEADLESS("chromeHeadless", Boolean.TRUE, Boolean.FALSE, Boolean.TRUE),
+
 	/** iPad for native app. **/
 	IPAD("ipad", Boolean.FALSE, Boolean.FALSE),
 
@@ -38,6 +41,9 @@ public enum PlatformTypeEnum {
 	/** Is browser should be maximize? */
 	private Boolean fIsMaximizable;
 
+	/** Is the browser running without a visible window? */
+	private Boolean fIsHeadless;
+
 	/**
 	 * internal mapping of names to enumeration entries for quick access by name.
 	 */
@@ -59,9 +65,24 @@ public enum PlatformTypeEnum {
 	 * @param isMaximizable is this platform maximisable? normally {@code true} for browsers
 	 */
 	private PlatformTypeEnum(final String name, final Boolean isWeb, final Boolean isMaximizable) {
+		this(name, isWeb, isMaximizable, Boolean.FALSE);
+	}
+
+	/**
+	 * Internal constructor.
+	 * 
+	 * @param name
+	 *            the name of the browser
+	 * @param isWeb is this platform on the web
+	 * @param isMaximizable is this platform maximisable? normally {@code true} for browsers
+	 * @param isHeadless is the browser running without a visible window?
+	 */
+	private PlatformTypeEnum(final String name, final Boolean isWeb, final Boolean isMaximizable,
+			final Boolean isHeadless) {
 		this.fName = name;
 		this.fIsWeb = isWeb;
 		this.fIsMaximizable = isMaximizable;
+		this.fIsHeadless = isHeadless;
 	}
 
 	/**
@@ -92,4 +113,14 @@ public enum PlatformTypeEnum {
 	public Boolean isMaximizable() {
 		return this.fIsMaximizable;
 	}
+
+	/**
+	 * Is the browser running without a visible window? Headless browsers render into a viewport of fixed size instead
+	 * of a maximised window.
+	 * 
+	 * @return {@code true} if it's a headless browser.
+	 */
+	public Boolean isHeadless() {
+		return this.fIsHeadless;
+	}
 }
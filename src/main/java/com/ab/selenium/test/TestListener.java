@@ -7,16 +7,27 @@ import javax.naming.OperationNotSupportedException;
 import org.openqa.selenium.WebDriverException;
 import org.testng.IInvokedMethod;
 import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
 import org.testng.ITestResult;
 import org.testng.TestListenerAdapter;
 
 import com.ab.selenium.test.evaluation.SoftAssert;
+import com.ab.selenium.test.session.DriverCreationPolicy;
+import com.ab.selenium.test.session.GridHubRouter;
+import com.ab.selenium.test.session.SessionDisposer;
+import com.ab.selenium.test.session.SessionPool;
+import com.ab.selenium.test.session.SessionProvisioner;
+import com.ab.selenium.test.session.SessionStartupStatistics;
 import com.ab.selenium.util.CaptureScreenshots;
+import com.ab.selenium.util.wait.WaitStatistics;
 
-public class TestListener extends TestListenerAdapter implements IInvokedMethodListener {
+public class TestListener extends TestListenerAdapter implements IInvokedMethodListener, ISuiteListener {
 
 	@Override
 	public void onTestFailure(final ITestResult tr) {
+		// called after the invocation, when the context has been detached already
+		boolean attached = attachContext(tr);
 		try {
 			try {
 				BrowserLogger.INSTANCE.logUrl(null, false);
@@ -47,17 +58,53 @@ public class TestListener extends TestListenerAdapter implements IInvokedMethodL
 						+ "Since it's not a WebDriverException, it must be an exception to be looked at.", false);
 				super.onTestFailure(tr);
 			}
+			if (attached) {
+				ExecutionContext.detach();
+			}
 		}
 	}
 
 	@Override
-	public void beforeInvocation(final IInvokedMethod method, final ITestResult testResult) {
+	public void onStart(final ISuite suite) {
 		// no need to do anything as of now.
 	}
 
+	/**
+	 * Quit the sessions kept open for reuse or provisioned but not claimed and log the session startup durations.
+	 * 
+	 * @param suite
+	 *            finished suite
+	 */
+	@Override
+	public void onFinish(final ISuite suite) {
+		SessionProvisioner.INSTANCE.shutdown();
+		SessionPool.INSTANCE.shutdown();
+		SessionDisposer.INSTANCE.awaitTermination();
+		GridHubRouter.INSTANCE.shutdown();
+		DriverCreationPolicy.INSTANCE.reset();
+		SessionStartupStatistics.INSTANCE.report();
+		WaitStatistics.INSTANCE.report();
+	}
+
+	/**
+	 * Attach the {@link ExecutionContext} of the test instance to the thread running the method, so that the utilities
+	 * use the driver of this test even if methods run in parallel.
+	 * 
+	 * @param method
+	 *            method to be invoked
+	 * @param testResult
+	 *            test result
+	 */
+	@Override
+	public void beforeInvocation(final IInvokedMethod method, final ITestResult testResult) {
+		attachContext(testResult);
+	}
+
 	/**
 	 * This specific implementation is based on {@link SoftAssert} usage. Should there have been any soft assertion
 	 * failures, the test is going to be set as failure with all errors being part of the message.<br>
+	 * The {@link ExecutionContext} attached by {@link #beforeInvocation(IInvokedMethod, ITestResult)} is detached
+	 * afterwards, so that the thread doesn't keep the test instance alive.
 	 * 
 	 * @param method
 	 *            invoked method
@@ -65,6 +112,40 @@ public class TestListener extends TestListenerAdapter implements IInvokedMethodL
 	 *            test result
 	 */
 	public final void afterInvocation(final IInvokedMethod method, final ITestResult tr) {
+		try {
+			checkVerifications(method, tr);
+		} finally {
+			if (tr.getInstance() instanceof AbstractTest) {
+				ExecutionContext.detach();
+			}
+		}
+	}
+
+	/**
+	 * Attach the {@link ExecutionContext} of the test instance to the current thread.
+	 * 
+	 * @param testResult
+	 *            test result
+	 * @return {@code true} if a context has been attached, {@code false} if the test is no {@link AbstractTest}
+	 */
+	private static boolean attachContext(final ITestResult testResult) {
+		Object instance = testResult.getInstance();
+		if (instance instanceof AbstractTest) {
+			ExecutionContext.attach(((AbstractTest) instance).getExecutionContext());
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Fail the test with the {@link SoftAssert} verification failures, if there are any.
+	 * 
+	 * @param method
+	 *            invoked method
+	 * @param tr
+	 *            test result
+	 */
+	private static void checkVerifications(final IInvokedMethod method, final ITestResult tr) {
 		// check SoftAssert verifications
 
 		if (method.isTestMethod()) {
@@ -173,7 +173,7 @@ public final class SoftAssert {
 	 * @param e
 	 *            error
 	 */
-	private void addVerificationFailure(final Throwable e) {
+	private synchronized void addVerificationFailure(final Throwable e) {
 		ITestResult testResult = Reporter.getCurrentTestResult();
 		List<Throwable> verificationFailures = getVerificationFailures(testResult);
 		this.verificationFailuresMap.put(getTestResultHash(testResult), verificationFailures);
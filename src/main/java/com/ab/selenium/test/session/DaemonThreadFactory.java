@@ -0,0 +1,30 @@
+package com.ab.selenium.test.session;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates named daemon threads, so that background work on sessions doesn't keep the JVM alive.
+ */
+final class DaemonThreadFactory implements ThreadFactory {
+	/** Prefix of the thread names. */
+	private final String fNamePrefix;
+	/** Number of the last created thread. */
+	private int threadNr = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param namePrefix
+	 *            prefix of the thread names
+	 */
+	DaemonThreadFactory(final String namePrefix) {
+		this.fNamePrefix = namePrefix;
+	}
+
+	@Override
+	public synchronized Thread newThread(final Runnable runnable) {
+		Thread thread = new Thread(runnable, this.fNamePrefix + "-" + ++this.threadNr);
+		thread.setDaemon(true);
+		return thread;
+	}
+}
@@ -0,0 +1,184 @@
+package com.ab.selenium.test.session;
+
+import java.net.MalformedURLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.testng.SkipException;
+
+import com.ab.selenium.test.Logger;
+
+/**
+ * Decides how often and on which hubs a browser is started. A failed start is retried with exponential backoff and
+ * jitter, so that several test classes don't hit a struggling hub at the same moment.<br>
+ * Failures are counted per hub. After {@link #FAILURE_THRESHOLD} consecutive failures the circuit of the hub is opened
+ * and the hub is not tried for {@link #OPEN_DURATION}. Afterwards one trial is allowed: a success closes the circuit, a
+ * failure opens it again. If the circuits of all hubs are open, the test class is skipped immediately instead of
+ * waiting for the connection timeouts of dead hubs.<br>
+ * An enum is used for implementation in order to make it a thread safe and serializable singleton.
+ */
+public enum DriverCreationPolicy {
+	/** The only instance of the policy. */
+	INSTANCE;
+
+	/** Maximal number of rounds over all hubs until marking as failure. */
+	private static final int MAX_ATTEMPTS = 3;
+	/** Wait before the second round. Doubled for every further round. In milliseconds. */
+	private static final long INITIAL_BACKOFF = 2000L;
+	/** Maximal wait between two rounds. In milliseconds. */
+	private static final long MAX_BACKOFF = 30000L;
+	/** Number of consecutive failures opening the circuit of a hub. */
+	private static final int FAILURE_THRESHOLD = 3;
+	/** Time the circuit stays open before the hub is tried again. In milliseconds. */
+	private static final long OPEN_DURATION = 60000L;
+
+	/** Circuits by hub URL. */
+	private final Map<String, Circuit> circuits = new HashMap<String, Circuit>();
+
+	/**
+	 * Start a browser on one of the hubs. The hubs are tried in the given order, skipping hubs with an open circuit.
+	 * 
+	 * @param hubUrls
+	 *            hubs to start the browser on, in the order of preference
+	 * @param constructor
+	 *            starts the browser on a hub
+	 * @return the new driver
+	 * @throws MalformedURLException
+	 *             if a hub URL has errors
+	 * @throws WebDriverException
+	 *             the last failure, if no hub has started the browser
+	 * @throws SkipException
+	 *             if the circuits of all hubs are open
+	 */
+	public WebDriver create(final List<String> hubUrls, final IDriverConstructor constructor)
+			throws MalformedURLException {
+		WebDriverException lastFailure = null;
+		for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+			boolean tried = false;
+			for (String hubUrl : hubUrls) {
+				if (!isClosed(hubUrl)) {
+					continue;
+				}
+				tried = true;
+				try {
+					WebDriver driver = constructor.construct(hubUrl);
+					succeeded(hubUrl);
+					return driver;
+				} catch (WebDriverException e) {
+					lastFailure = e;
+					failed(hubUrl);
+					Logger.logStepResult("Hub " + hubUrl + " has failed to start the browser: " + e.getMessage(), false);
+				}
+			}
+			if (!tried) {
+				throw new SkipException("Circuit open for all hubs " + hubUrls + ", not starting the browser.");
+			}
+			if (attempt < MAX_ATTEMPTS && !backOff(attempt)) {
+				break;
+			}
+		}
+		throw lastFailure;
+	}
+
+	/**
+	 * Forget all failures. To be called at the end of the suite.
+	 */
+	public void reset() {
+		synchronized (this.circuits) {
+			this.circuits.clear();
+		}
+	}
+
+	/**
+	 * May the hub be tried? Lets one trial pass once the circuit has been open for {@link #OPEN_DURATION}.
+	 * 
+	 * @param hubUrl
+	 *            hub to try
+	 * @return {@code true} if the circuit is closed or half open
+	 */
+	private boolean isClosed(final String hubUrl) {
+		synchronized (this.circuits) {
+			Circuit circuit = this.circuits.get(hubUrl);
+			if (circuit == null || circuit.failures < FAILURE_THRESHOLD) {
+				return true;
+			}
+			long now = System.currentTimeMillis();
+			if (now - circuit.openedAt < OPEN_DURATION) {
+				return false;
+			}
+			// half open: the trial keeps others out until it has finished
+			circuit.openedAt = now;
+			return true;
+		}
+	}
+
+	/**
+	 * Close the circuit of the hub.
+	 * 
+	 * @param hubUrl
+	 *            hub, which has started a browser
+	 */
+	private void succeeded(final String hubUrl) {
+		synchronized (this.circuits) {
+			this.circuits.remove(hubUrl);
+		}
+		GridHubRouter.INSTANCE.sessionStarted(hubUrl);
+	}
+
+	/**
+	 * Count the failure and open the circuit if the threshold is reached.
+	 * 
+	 * @param hubUrl
+	 *            hub, which has failed to start a browser
+	 */
+	private void failed(final String hubUrl) {
+		synchronized (this.circuits) {
+			Circuit circuit = this.circuits.get(hubUrl);
+			if (circuit == null) {
+				circuit = new Circuit();
+				this.circuits.put(hubUrl, circuit);
+			}
+			circuit.failures++;
+			if (circuit.failures >= FAILURE_THRESHOLD) {
+				circuit.openedAt = System.currentTimeMillis();
+				Logger.logStepResult("Circuit opened for hub " + hubUrl + " after " + circuit.failures
+						+ " consecutive failures.", false);
+			}
+		}
+		GridHubRouter.INSTANCE.sessionFailed(hubUrl);
+	}
+
+	/**
+	 * Wait before the next round. The wait is drawn from the upper half of the exponential backoff.
+	 * 
+	 * @param attempt
+	 *            number of the finished round, starting with 1
+	 * @return {@code false} if interrupted
+	 */
+	private static boolean backOff(final int attempt) {
+		long backoff = Math.min(MAX_BACKOFF, INITIAL_BACKOFF << (attempt - 1));
+		long wait = ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+		Logger.logStepResult("Retrying to create new web driver in " + wait + " ms.", false);
+		try {
+			Thread.sleep(wait);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Failure state of a hub.
+	 */
+	private static final class Circuit {
+		/** Number of consecutive failures. */
+		private int failures;
+		/** When the circuit has been opened or the last trial has started. */
+		private long openedAt;
+	}
+}
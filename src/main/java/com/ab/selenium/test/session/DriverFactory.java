@@ -0,0 +1,312 @@
+package com.ab.selenium.test.session;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.ie.InternetExplorerDriver;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.safari.SafariDriver;
+
+import com.ab.selenium.test.PlatformTypeEnum;
+
+/**
+ * Starts browser sessions. Independent of the test instance, so sessions can be started on any thread (see
+ * {@link SessionProvisioner}).
+ */
+public final class DriverFactory {
+	/** Time limit for a page load. In minutes. */
+	private static final long PAGE_LOAD_TIMEOUT = 5;
+	/** Size of the viewport of headless browsers. */
+	private static final Dimension HEADLESS_VIEWPORT = new Dimension(1920, 1080);
+
+	/**
+	 * Private constructor. Not used, since all methods are static.
+	 */
+	private DriverFactory() {
+	}
+
+	/**
+	 * Start a new browser as requested. The browser is not yet navigated anywhere, see
+	 * {@link #prepareSession(WebDriver, SessionRequest)}.
+	 *
+	 * @param request
+	 *            what to start
+	 * @return the new driver
+	 * @throws MalformedURLException
+	 *             if the gridServer parameter is not correct
+	 */
+	public static WebDriver createDriver(final SessionRequest request) throws MalformedURLException {
+		SessionStartupTimer timer = new SessionStartupTimer(request.getPlatformType());
+		DesiredCapabilities capabilities;
+		WebDriver driver;
+		switch (request.getPlatformType()) {
+		case CHROME:
+		case CHROME_HEADLESS:
+			capabilities = DesiredCapabilities.chrome();
+			// multiple platforms (operating systems) possible
+			capabilities.setPlatform(Platform.valueOf(request.getOperatingSystem()));
+			if (request.getPlatformType().isHeadless().booleanValue()) {
+				ChromeOptions options = new ChromeOptions();
+				options.addArguments("--headless", "--disable-gpu",
+						"--window-size=" + HEADLESS_VIEWPORT.getWidth() + "," + HEADLESS_VIEWPORT.getHeight());
+				capabilities.setCapability(ChromeOptions.CAPABILITY, options);
+			}
+			timer.lap(StartupPhase.CAPABILITIES);
+			if (request.useGridServer()) {
+				driver = createRemoteDriver(request, capabilities);
+				timer.lap(StartupPhase.DRIVER_CONSTRUCTION);
+				// add capture screenshot capabilities
+				driver = augmentRemoteWebDriverCapabilities(driver);
+				timer.lap(StartupPhase.AUGMENTATION);
+			} else {
+				applyDriver("webdriver.chrome.driver", request.getDriverPath());
+				// capabilities.setCapability("chrome.nativeEvents", true);
+				driver = new ChromeDriver(capabilities);
+				timer.lap(StartupPhase.DRIVER_CONSTRUCTION);
+			}
+			break;
+
+		case SAFARI:
+			capabilities = DesiredCapabilities.safari();
+			// capabilities.setCapability(SafariDriver.CLEAN_SESSION_CAPABILITY, true);
+			// multiple platforms (operating systems) possible
+			capabilities.setPlatform(Platform.MAC);
+			timer.lap(StartupPhase.CAPABILITIES);
+			if (request.useGridServer()) {
+				// File safariExecutable = new File("C:\\Program Files (x86)\\Safari");
+				// System.setProperty("SafariDefaultPath", safariExecutable.getAbsolutePath());
+				driver = createRemoteDriver(request, capabilities);
+				timer.lap(StartupPhase.DRIVER_CONSTRUCTION);
+				// add capture screenshot capabilities
+				driver = augmentRemoteWebDriverCapabilities(driver);
+				timer.lap(StartupPhase.AUGMENTATION);
+			} else {
+				// File safariExecutable = new File("D:\\Programs\\Safari\\Safari.exe");
+				// if (safariExecutable.exists()) {
+				// System.setProperty("SafariDefaultPath", safariExecutable.getAbsolutePath());
+				// }
+				driver = new SafariDriver(capabilities);
+				timer.lap(StartupPhase.DRIVER_CONSTRUCTION);
+			}
+			break;
+
+		case FIREFOX:
+			capabilities = DesiredCapabilities.firefox();
+			// multiple platforms (operating systems) possible
+			capabilities.setPlatform(Platform.valueOf(request.getOperatingSystem()));
+			// copied and encoded only once per JVM. A local driver adds its extension to the profile, so every local
+			// session gets a profile of its own.
+			if (request.useGridServer()) {
+				capabilities.setCapability(FirefoxDriver.PROFILE,
+						FirefoxProfileCache.INSTANCE.getEncodedProfile("default"));
+			} else {
+				capabilities.setCapability(FirefoxDriver.PROFILE, FirefoxProfileCache.INSTANCE.getProfile("default"));
+			}
+			timer.lap(StartupPhase.CAPABILITIES);
+
+			if (request.useGridServer()) {
+				// capabilities.setCapability(FirefoxDriver.PROFILE, "WebDriver");
+				driver = createRemoteDriver(request, capabilities);
+				timer.lap(StartupPhase.DRIVER_CONSTRUCTION);
+				// add capture screenshot capabilities
+				driver = augmentRemoteWebDriverCapabilities(driver);
+				timer.lap(StartupPhase.AUGMENTATION);
+			} else {
+				driver = new FirefoxDriver(capabilities);
+				timer.lap(StartupPhase.DRIVER_CONSTRUCTION);
+			}
+			break;
+		case IE:
+		default:
+			capabilities = DesiredCapabilities.internetExplorer();
+			capabilities.setPlatform(Platform.valueOf(request.getOperatingSystem()));
+			capabilities.setCapability(InternetExplorerDriver.INTRODUCE_FLAKINESS_BY_IGNORING_SECURITY_DOMAINS, true);
+			capabilities.setCapability(InternetExplorerDriver.IE_ENSURE_CLEAN_SESSION, true);
+			capabilities.setCapability("requireWindowFocus", true);
+			capabilities.setCapability("enablePersistentHover", false);
+			timer.lap(StartupPhase.CAPABILITIES);
+
+			if (request.useGridServer()) {
+				// InternetExplorerDriverService service = new
+				// InternetExplorerDriverService.Builder().usingPort(4444).withHost(gridServer).build();
+
+				driver = createRemoteDriver(request, capabilities);
+				// setDriver(new InternetExplorerDriver(service, capabilities));
+				timer.lap(StartupPhase.DRIVER_CONSTRUCTION);
+				// add capture screenshot capabilities
+				driver = augmentRemoteWebDriverCapabilities(driver);
+				timer.lap(StartupPhase.AUGMENTATION);
+			} else {
+				applyDriver("webdriver.ie.driver", request.getDriverPath());
+
+				driver = new InternetExplorerDriver(capabilities);
+				timer.lap(StartupPhase.DRIVER_CONSTRUCTION);
+			}
+			break;
+		}
+		timer.finish(getHub(driver, request));
+		driver.manage().timeouts().pageLoadTimeout(PAGE_LOAD_TIMEOUT, TimeUnit.MINUTES);
+		return driver;
+	}
+
+	/**
+	 * Bring a freshly started browser into the state expected by the tests: maximised, without cookies and showing the
+	 * test target.
+	 *
+	 * @param driver
+	 *            freshly started browser
+	 * @param request
+	 *            request the browser has been started for
+	 */
+	public static void prepareSession(final WebDriver driver, final SessionRequest request) {
+		PlatformTypeEnum platformType = request.getPlatformType();
+		if (platformType.isWeb().booleanValue()) {
+			SessionStartupTimer timer = new SessionStartupTimer(platformType);
+
+			// setupScreenToSize(new Dimension(browserWindowWidth, browserWindowHeight));
+			if (platformType.isMaximizable().booleanValue()) {
+				maximiseWindow(driver);
+				timer.lap(StartupPhase.MAXIMISE_WINDOW);
+			} else if (platformType.isHeadless().booleanValue()) {
+				// there is no screen to maximise to
+				driver.manage().window().setSize(HEADLESS_VIEWPORT);
+				timer.lap(StartupPhase.MAXIMISE_WINDOW);
+			}
+
+			// delete cookies
+			deleteCookies(driver, platformType, request.getTestTarget());
+			timer.lap(StartupPhase.DELETE_COOKIES);
+
+			// now open the web site
+			driver.get(request.getTestTarget());
+			timer.lap(StartupPhase.INITIAL_LOAD);
+
+			timer.finish(getHub(driver, request));
+		}
+	}
+
+	/**
+	 * Expands the opened browser window to full screen.
+	 *
+	 * @param driver
+	 *            browser to maximise
+	 */
+	public static void maximiseWindow(final WebDriver driver) {
+		// ((JavascriptExecutor) getDriver())
+		// .executeScript("window.moveTo(0,0); window.resizeTo(screen.width,screen.height);");
+		driver.manage().window().maximize();
+	}
+
+	/**
+	 * Delete all cookies of the browsers.
+	 *
+	 * @param driver
+	 *            browser to delete the cookies in
+	 * @param platformType
+	 *            platform of the browser
+	 * @param testTarget
+	 *            url to navigate to. Needed to delete cookies in some browsers.
+	 */
+	@SuppressWarnings("fallthrough")
+	public static void deleteCookies(final WebDriver driver, final PlatformTypeEnum platformType,
+			final String testTarget) {
+		switch (platformType) {
+		case SAFARI:
+			driver.get(testTarget);
+		default:
+			driver.manage().deleteAllCookies();
+		}
+	}
+
+	/**
+	 * Verifies that the driver is available under the defined path and sets the system property. Used for local
+	 * execution of tests.
+	 *
+	 * @param driverProperty
+	 *            property as required by the driver
+	 * @param driverPath
+	 *            path to the driver executable
+	 */
+	private static void applyDriver(final String driverProperty, final String driverPath) {
+		if (driverPath != null && driverPath.trim().length() > 0) {
+			File serverDriverFile = new File(driverPath);
+			// the parameter was set
+			if (serverDriverFile.exists()) {
+				// can access the file
+				System.setProperty(driverProperty, driverPath);
+			} else {
+				throw new RuntimeException("Cannot access driver '" + driverProperty + "' with path ["
+						+ serverDriverFile.getAbsolutePath() + "]");
+			}
+		}
+	}
+
+	/**
+	 * RemoteWebDriver does not implement the {@link org.openqa.selenium.TakesScreenshot TakesScreenshot} class if the
+	 * driver does have the Capabilities to take a screenshot then Augmenter will add the TakesScreenshot methods to the
+	 * instance.
+	 *
+	 * @param driver
+	 *            remote driver
+	 * @return augmented driver
+	 * @see org.openqa.selenium.remote.Augmenter
+	 */
+	private static WebDriver augmentRemoteWebDriverCapabilities(final WebDriver driver) {
+		return new Augmenter().augment(driver);
+	}
+
+	/**
+	 * Find the hub the session is running on.
+	 *
+	 * @param driver
+	 *            open session
+	 * @param request
+	 *            request the session has been opened for
+	 * @return URL of the hub or {@link SessionKey#LOCAL_HUB}
+	 */
+	private static String getHub(final WebDriver driver, final SessionRequest request) {
+		if (request.useGridServer() && driver instanceof RemoteWebDriver) {
+			CommandExecutor executor = ((RemoteWebDriver) driver).getCommandExecutor();
+			if (executor instanceof HttpCommandExecutor) {
+				return ((HttpCommandExecutor) executor).getAddressOfRemoteServer().toString();
+			}
+		}
+		return SessionKey.LOCAL_HUB;
+	}
+
+	/**
+	 * Start the browser on a Selenium Grid. If several hubs are configured, the hubs are tried in the order given by
+	 * the {@link GridHubRouter}. Failures are retried as defined by the {@link DriverCreationPolicy}.
+	 *
+	 * @param request
+	 *            containing Selenium Grid server names and port
+	 * @param capabilities
+	 *            capabilities of the browser
+	 * @return the new remote driver
+	 * @throws MalformedURLException
+	 *             if the URL has errors
+	 */
+	private static WebDriver createRemoteDriver(final SessionRequest request, final DesiredCapabilities capabilities)
+			throws MalformedURLException {
+		List<String> hubUrls = GridHubRouter.INSTANCE.rankHubs(request.getGridServerURLs());
+		return DriverCreationPolicy.INSTANCE.create(hubUrls, new IDriverConstructor() {
+			@Override
+			public WebDriver construct(final String hubUrl) throws MalformedURLException {
+				return new RemoteWebDriver(new URL(hubUrl), capabilities);
+			}
+		});
+	}
+}
@@ -0,0 +1,185 @@
+package com.ab.selenium.test.session;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxProfile;
+import org.openqa.selenium.firefox.internal.ProfilesIni;
+import org.openqa.selenium.io.FileHandler;
+import org.openqa.selenium.io.TemporaryFilesystem;
+
+/**
+ * Keeps the copies of the Firefox profiles for the lifetime of the JVM. Loading a profile by name copies the whole
+ * profile directory and every remote session zips and encodes the copy again. The cache copies the profile once and
+ * encodes it only once for all remote sessions. Local sessions get a profile of their own on top of the copy, since
+ * the driver adds its extension to the profile it is given.<br>
+ * The source profile directory is checked on every request by a stamp of its entries (names, sizes and modification
+ * times, without descending into subdirectories). Should it have changed, the profile is loaded again.<br>
+ * An enum is used for implementation in order to make it a thread safe and serializable singleton.
+ */
+enum FirefoxProfileCache {
+	/** The only instance of the cache. */
+	INSTANCE;
+
+	/** Files in the copy of the profile, which must not be used (as deleted by {@link ProfilesIni}). */
+	private static final String[] STALE_FILES = { "compreg.dat" };
+
+	/** Prepared profiles by profile name. */
+	private final Map<String, CachedProfile> profiles = new HashMap<String, CachedProfile>();
+
+	/**
+	 * Get a profile for a local session. Every call returns a new profile, based on the cached copy.
+	 *
+	 * @param profileName
+	 *            name of the profile as known to Firefox
+	 * @return the profile accepting untrusted certificates
+	 * @throws WebDriverException
+	 *             if there is no such profile or it cannot be copied
+	 */
+	public synchronized FirefoxProfile getProfile(final String profileName) {
+		return prepare(new FirefoxProfile(getCachedProfile(profileName).copyDir));
+	}
+
+	/**
+	 * Get the profile for a remote session, zipped and encoded as expected by the {@link FirefoxDriver#PROFILE}
+	 * capability. The profile is encoded only once.
+	 *
+	 * @param profileName
+	 *            name of the profile as known to Firefox
+	 * @return the encoded profile accepting untrusted certificates
+	 * @throws WebDriverException
+	 *             if there is no such profile or it cannot be copied or encoded
+	 */
+	public synchronized String getEncodedProfile(final String profileName) {
+		CachedProfile cached = getCachedProfile(profileName);
+		if (cached.json == null) {
+			try {
+				cached.json = prepare(new FirefoxProfile(cached.copyDir)).toJson();
+			} catch (IOException e) {
+				throw new WebDriverException("Unable to encode Firefox profile '" + profileName + "'.", e);
+			}
+		}
+		return cached.json;
+	}
+
+	/**
+	 * Get the copy of the profile, copying it again if the source has changed.
+	 *
+	 * @param profileName
+	 *            name of the profile as known to Firefox
+	 * @return the cached profile
+	 * @throws WebDriverException
+	 *             if there is no such profile or it cannot be copied
+	 */
+	private CachedProfile getCachedProfile(final String profileName) {
+		File sourceDir = new ProfileLocator().locate(profileName);
+		if (sourceDir == null) {
+			throw new WebDriverException("Firefox profile '" + profileName + "' not found.");
+		}
+		long stamp = stamp(sourceDir);
+		CachedProfile cached = this.profiles.get(profileName);
+		if (cached != null && cached.stamp == stamp) {
+			return cached;
+		}
+		if (cached != null) {
+			TemporaryFilesystem.getDefaultTmpFS().deleteTempDir(cached.copyDir);
+		}
+		File copyDir = TemporaryFilesystem.getDefaultTmpFS().createTempDir("userprofile", "copy");
+		try {
+			FileHandler.copy(sourceDir, copyDir);
+		} catch (IOException e) {
+			throw new WebDriverException("Unable to copy Firefox profile '" + profileName + "'.", e);
+		}
+		for (String staleFile : STALE_FILES) {
+			File file = new File(copyDir, staleFile);
+			if (file.exists() && !file.delete()) {
+				throw new WebDriverException("Cannot delete file from copy of profile " + profileName);
+			}
+		}
+		cached = new CachedProfile(copyDir, stamp);
+		this.profiles.put(profileName, cached);
+		return cached;
+	}
+
+	/**
+	 * Prepare the profile for testing.
+	 *
+	 * @param profile
+	 *            profile to prepare
+	 * @return the profile
+	 */
+	private static FirefoxProfile prepare(final FirefoxProfile profile) {
+		profile.setAcceptUntrustedCertificates(true);
+		// profile.setEnableNativeEvents(true);
+		return profile;
+	}
+
+	/**
+	 * Hash the entries of the directory: names, sizes and modification times. Changes within a subdirectory show in
+	 * its modification time, as long as files are added, removed or replaced there, which is how Firefox writes its
+	 * profile.
+	 *
+	 * @param dir
+	 *            profile directory
+	 * @return stamp, which changes whenever an entry is added, removed or written
+	 */
+	private static long stamp(final File dir) {
+		long stamp = dir.lastModified();
+		File[] files = dir.listFiles();
+		if (files == null) {
+			return stamp;
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			stamp = 31 * stamp + file.getName().hashCode();
+			stamp = 31 * stamp + file.length();
+			stamp = 31 * stamp + file.lastModified();
+		}
+		return stamp;
+	}
+
+	/**
+	 * Finds the directory of a profile without copying it.
+	 */
+	private static final class ProfileLocator extends ProfilesIni {
+		/**
+		 * @param profileName
+		 *            name of the profile as known to Firefox
+		 * @return directory of the profile or {@code null} if there is no such profile
+		 */
+		File locate(final String profileName) {
+			return readProfiles(locateAppDataDirectory(Platform.getCurrent())).get(profileName);
+		}
+	}
+
+	/**
+	 * Copy of a profile with the state of its source.
+	 */
+	private static final class CachedProfile {
+		/** Copy of the source directory. */
+		private final File copyDir;
+		/** Stamp of the source directory when copied. */
+		private final long stamp;
+		/** Encoded profile. {@code null} until first requested. */
+		private String json;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param copyDir
+		 *            copy of the source directory
+		 * @param stamp
+		 *            stamp of the source directory when copied
+		 */
+		CachedProfile(final File copyDir, final long stamp) {
+			this.copyDir = copyDir;
+			this.stamp = stamp;
+		}
+	}
+}
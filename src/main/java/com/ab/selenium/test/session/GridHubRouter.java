@@ -0,0 +1,291 @@
+package com.ab.selenium.test.session;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.ab.selenium.test.Logger;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Spreads the sessions over several Selenium Grid hubs. The hubs are probed periodically for their health and free
+ * slots, and every new session is routed to the healthy hub with the most free slots (see {@link #rankHubs(List)}).
+ * Hubs, which don't answer the probe, are tried last, so a dead hub doesn't make the session wait for the full
+ * connection timeout.<br>
+ * The free slots are read from the hub API {@code /grid/api/hub}. Hubs without this API are only checked for
+ * being alive ({@code /wd/hub/status}).<br>
+ * An enum is used for implementation in order to make it a thread safe and serializable singleton.
+ */
+public enum GridHubRouter {
+	/** The only instance of the router. */
+	INSTANCE;
+
+	/** Time between two probes of a hub. In milliseconds. */
+	private static final long PROBE_INTERVAL = 10000L;
+	/** Connect and read timeout of a probe. In milliseconds. */
+	private static final int PROBE_TIMEOUT = 2000;
+	/** Path of the hub API reporting the slot counts, relative to the host. */
+	private static final String HUB_API_PATH = "/grid/api/hub";
+	/** Path of the status of the WebDriver endpoint, relative to the hub URL. */
+	private static final String STATUS_PATH = "/status";
+	/** Number of free slots reported for hubs, which don't provide the slot counts. */
+	private static final int UNKNOWN_SLOTS = -1;
+
+	/** Last known state by hub URL. */
+	private final Map<String, HubStatus> statuses = new HashMap<String, HubStatus>();
+	/** Thread probing the known hubs periodically. {@code null} until the first hub is routed to. */
+	private ScheduledExecutorService prober;
+
+	/**
+	 * Order the hubs by preference: healthy hubs with the most free slots first, hubs not answering the probe last. A
+	 * single hub is returned as is without probing.
+	 *
+	 * @param hubUrls
+	 *            URLs of the hubs as used for the {@link org.openqa.selenium.remote.RemoteWebDriver RemoteWebDriver}
+	 * @return the same URLs in the order they should be tried
+	 */
+	public List<String> rankHubs(final List<String> hubUrls) {
+		if (hubUrls.size() <= 1) {
+			return hubUrls;
+		}
+		List<String> unknownHubs = new ArrayList<String>();
+		synchronized (this.statuses) {
+			for (String hubUrl : hubUrls) {
+				if (!this.statuses.containsKey(hubUrl)) {
+					unknownHubs.add(hubUrl);
+				}
+			}
+		}
+		if (!unknownHubs.isEmpty()) {
+			probe(unknownHubs);
+			startProber();
+		}
+		final Map<String, HubStatus> snapshot = new HashMap<String, HubStatus>();
+		synchronized (this.statuses) {
+			for (String hubUrl : hubUrls) {
+				HubStatus status = this.statuses.get(hubUrl);
+				// forgotten by a concurrent shutdown
+				snapshot.put(hubUrl, status == null ? new HubStatus(false, 0) : status);
+			}
+		}
+		List<String> ranking = new ArrayList<String>(hubUrls);
+		// stable sort, hubs in the same state keep the configured order
+		Collections.sort(ranking, new Comparator<String>() {
+			@Override
+			public int compare(final String first, final String second) {
+				return snapshot.get(first).compareTo(snapshot.get(second));
+			}
+		});
+		return ranking;
+	}
+
+	/**
+	 * Take note of a session having been started on the hub, so that the following sessions prefer other hubs until
+	 * the next probe.
+	 *
+	 * @param hubUrl
+	 *            hub the session has been started on
+	 */
+	public void sessionStarted(final String hubUrl) {
+		synchronized (this.statuses) {
+			HubStatus status = this.statuses.get(hubUrl);
+			if (status != null && status.freeSlots > 0) {
+				this.statuses.put(hubUrl, new HubStatus(true, status.freeSlots - 1));
+			}
+		}
+	}
+
+	/**
+	 * Take note of the hub having failed to start a session. It is tried last until the next probe finds it healthy.
+	 *
+	 * @param hubUrl
+	 *            hub, which has failed
+	 */
+	public void sessionFailed(final String hubUrl) {
+		synchronized (this.statuses) {
+			if (this.statuses.containsKey(hubUrl)) {
+				this.statuses.put(hubUrl, new HubStatus(false, 0));
+			}
+		}
+	}
+
+	/**
+	 * Stop probing and forget the state of all hubs. To be called at the end of the suite.
+	 */
+	public void shutdown() {
+		synchronized (this.statuses) {
+			if (this.prober != null) {
+				this.prober.shutdownNow();
+				this.prober = null;
+			}
+			this.statuses.clear();
+		}
+	}
+
+	/**
+	 * Start probing the known hubs periodically, unless already running.
+	 */
+	private void startProber() {
+		synchronized (this.statuses) {
+			if (this.prober != null) {
+				return;
+			}
+			this.prober = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("hub-prober"));
+			this.prober.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					List<String> hubUrls;
+					synchronized (GridHubRouter.this.statuses) {
+						hubUrls = new ArrayList<String>(GridHubRouter.this.statuses.keySet());
+					}
+					probe(hubUrls);
+				}
+			}, PROBE_INTERVAL, PROBE_INTERVAL, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Probe the hubs in parallel and store their state.
+	 *
+	 * @param hubUrls
+	 *            hubs to probe
+	 */
+	private void probe(final List<String> hubUrls) {
+		if (hubUrls.isEmpty()) {
+			return;
+		}
+		ExecutorService executor =
+				Executors.newFixedThreadPool(hubUrls.size(), new DaemonThreadFactory("hub-probe"));
+		try {
+			Map<String, Future<HubStatus>> probes = new HashMap<String, Future<HubStatus>>();
+			for (final String hubUrl : hubUrls) {
+				probes.put(hubUrl, executor.submit(new Callable<HubStatus>() {
+					@Override
+					public HubStatus call() {
+						return probe(hubUrl);
+					}
+				}));
+			}
+			for (Map.Entry<String, Future<HubStatus>> entry : probes.entrySet()) {
+				HubStatus status;
+				try {
+					status = entry.getValue().get();
+				} catch (ExecutionException e) {
+					status = new HubStatus(false, 0);
+				}
+				synchronized (this.statuses) {
+					this.statuses.put(entry.getKey(), status);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Probe a hub: read the slot counts from the hub API, if not available check whether the hub is alive.
+	 *
+	 * @param hubUrl
+	 *            URL of the hub, ending with {@code /wd/hub}
+	 * @return state of the hub
+	 */
+	private static HubStatus probe(final String hubUrl) {
+		try {
+			URL url = new URL(hubUrl);
+			JsonObject hub = readJson(new URL(url.getProtocol(), url.getHost(), url.getPort(), HUB_API_PATH));
+			if (hub != null && hub.has("slotCounts")) {
+				JsonElement free = hub.getAsJsonObject("slotCounts").get("free");
+				return new HubStatus(true, free == null ? UNKNOWN_SLOTS : free.getAsInt());
+			}
+			return new HubStatus(readJson(new URL(hubUrl + STATUS_PATH)) != null, UNKNOWN_SLOTS);
+		} catch (IOException e) {
+			Logger.logStepResult("Hub " + hubUrl + " is not available: " + e, false);
+			return new HubStatus(false, 0);
+		} catch (RuntimeException e) {
+			// unexpected answer
+			Logger.logStepResult("Hub " + hubUrl + " has answered unexpectedly: " + e, false);
+			return new HubStatus(false, 0);
+		}
+	}
+
+	/**
+	 * Send a GET request.
+	 *
+	 * @param url
+	 *            where to send the request
+	 * @return answer or {@code null} if the answer is not a JSON object or the request was not successful
+	 * @throws IOException
+	 *             if the server doesn't answer within {@link #PROBE_TIMEOUT}
+	 */
+	private static JsonObject readJson(final URL url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setConnectTimeout(PROBE_TIMEOUT);
+		connection.setReadTimeout(PROBE_TIMEOUT);
+		try {
+			if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+				return null;
+			}
+			InputStream stream = connection.getInputStream();
+			Reader reader = new InputStreamReader(stream, "UTF-8");
+			try {
+				JsonElement answer = new JsonParser().parse(reader);
+				return answer.isJsonObject() ? answer.getAsJsonObject() : null;
+			} finally {
+				reader.close();
+			}
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	/**
+	 * State of a hub at the last probe.
+	 */
+	private static final class HubStatus implements Comparable<HubStatus> {
+		/** Has the hub answered? */
+		private final boolean healthy;
+		/** Number of free slots or {@link GridHubRouter#UNKNOWN_SLOTS}. */
+		private final int freeSlots;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param healthy
+		 *            has the hub answered?
+		 * @param freeSlots
+		 *            number of free slots or {@link GridHubRouter#UNKNOWN_SLOTS}
+		 */
+		HubStatus(final boolean healthy, final int freeSlots) {
+			this.healthy = healthy;
+			this.freeSlots = freeSlots;
+		}
+
+		@Override
+		public int compareTo(final HubStatus other) {
+			if (this.healthy != other.healthy) {
+				return this.healthy ? -1 : 1;
+			}
+			return other.freeSlots < this.freeSlots ? -1 : (other.freeSlots == this.freeSlots ? 0 : 1);
+		}
+	}
+}
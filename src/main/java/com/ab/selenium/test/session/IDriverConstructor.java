@@ -0,0 +1,25 @@
+package com.ab.selenium.test.session;
+
+import java.net.MalformedURLException;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Starts a browser on a given hub. Used by the {@link DriverCreationPolicy}, which decides on which hub and how often
+ * the browser is started.
+ */
+public interface IDriverConstructor {
+
+	/**
+	 * Start the browser.
+	 * 
+	 * @param hubUrl
+	 *            URL of the hub to start the browser on
+	 * @return the new driver
+	 * @throws MalformedURLException
+	 *             if the hub URL has errors
+	 * @throws org.openqa.selenium.WebDriverException
+	 *             if the hub fails to start the browser
+	 */
+	WebDriver construct(String hubUrl) throws MalformedURLException;
+}
@@ -0,0 +1,232 @@
+package com.ab.selenium.test.session;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.firefox.FirefoxBinary;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.service.DriverService;
+
+import com.ab.selenium.test.Logger;
+
+/**
+ * Closes sessions in the background, so the next test class can start while the old session is still being disposed.
+ * The windows are closed first and the session is quit once they are gone (waiting for close to take effect before
+ * quitting, see https://bugzilla.mozilla.org/show_bug.cgi?id=1027222). Should the session not quit within
+ * {@link #QUIT_TIMEOUT}, the local driver process is stopped.<br>
+ * At most {@link #DISPOSING_THREADS} sessions are disposed at the same time. If even more sessions are waiting, the
+ * calling thread disposes the session itself.<br>
+ * An enum is used for implementation in order to make it a thread safe and serializable singleton.
+ */
+public enum SessionDisposer {
+	/** The only instance of the disposer. */
+	INSTANCE;
+
+	/** Number of sessions to be disposed at the same time. */
+	private static final int DISPOSING_THREADS = 4;
+	/** Number of sessions waiting to be disposed before the caller has to dispose itself. */
+	private static final int QUEUE_CAPACITY = 16;
+	/** Time limit for the windows to close. In milliseconds. */
+	private static final long WINDOW_CLOSE_TIMEOUT = 3000L;
+	/** Time between the checks for the windows to be closed. In milliseconds. */
+	private static final long WINDOW_CLOSE_POLLING_INTERVAL = 100L;
+	/** Time limit for the session to quit. In milliseconds. */
+	private static final long QUIT_TIMEOUT = 30000L;
+	/** Time limit to wait for pending disposals at the end of the suite. In milliseconds. */
+	private static final long TERMINATION_TIMEOUT = QUIT_TIMEOUT + WINDOW_CLOSE_TIMEOUT;
+
+	/** Threads disposing the sessions. {@code null} until the first disposal. */
+	private ExecutorService disposingExecutor;
+	/** Threads sending the quit command, so that a hanging quit can be abandoned. */
+	private ExecutorService quittingExecutor;
+
+	/**
+	 * Close and quit the session in the background.
+	 *
+	 * @param driver
+	 *            session to dispose, may be {@code null}
+	 */
+	public void dispose(final WebDriver driver) {
+		if (driver == null) {
+			return;
+		}
+		getDisposingExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				disposeNow(driver);
+			}
+		});
+	}
+
+	/**
+	 * Wait for the pending disposals to finish. To be called at the end of the suite.
+	 */
+	public void awaitTermination() {
+		ExecutorService executor;
+		synchronized (this) {
+			executor = this.disposingExecutor;
+			this.disposingExecutor = null;
+		}
+		if (executor == null) {
+			return;
+		}
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				Logger.logStepResult("Sessions have not been disposed within " + TERMINATION_TIMEOUT + " ms.", false);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Close all windows, wait for them to be closed and quit the session.
+	 *
+	 * @param driver
+	 *            session to dispose
+	 */
+	private void disposeNow(final WebDriver driver) {
+		try {
+			for (String windowHandle : driver.getWindowHandles()) {
+				try {
+					driver.switchTo().window(windowHandle);
+					driver.close();
+				} catch (NoSuchWindowException e) {
+					// do nothing
+					Logger.logStepResult("failed to close the window", Boolean.FALSE);
+				}
+			}
+			waitForWindowsClosed(driver);
+		} catch (WebDriverException e) {
+			// closing the last window may have ended the session already
+			Logger.logStepResult("Session has not accepted closing its windows.", Boolean.FALSE);
+		}
+		quit(driver);
+	}
+
+	/**
+	 * Wait until the session reports no open windows or stops responding. Gives up after
+	 * {@link #WINDOW_CLOSE_TIMEOUT}.
+	 *
+	 * @param driver
+	 *            session with closing windows
+	 */
+	private static void waitForWindowsClosed(final WebDriver driver) {
+		long deadline = System.currentTimeMillis() + WINDOW_CLOSE_TIMEOUT;
+		while (System.currentTimeMillis() < deadline) {
+			try {
+				if (driver.getWindowHandles().isEmpty()) {
+					return;
+				}
+			} catch (WebDriverException e) {
+				// the session is gone together with its last window
+				return;
+			}
+			try {
+				Thread.sleep(WINDOW_CLOSE_POLLING_INTERVAL);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		Logger.logStepResult("Windows have not been closed within " + WINDOW_CLOSE_TIMEOUT + " ms.", Boolean.FALSE);
+	}
+
+	/**
+	 * Quit the session. Stops the driver process if the quit doesn't finish within {@link #QUIT_TIMEOUT}.
+	 *
+	 * @param driver
+	 *            session to quit
+	 */
+	private void quit(final WebDriver driver) {
+		Future<?> quitting = getQuittingExecutor().submit(new Runnable() {
+			@Override
+			public void run() {
+				driver.quit();
+			}
+		});
+		try {
+			quitting.get(QUIT_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			// driver seems to be dead already, but I don't care
+			Logger.logStepResult("driver.quit was not successfully sent", Boolean.FALSE);
+		} catch (TimeoutException e) {
+			Logger.logStepResult("driver.quit has not finished within " + QUIT_TIMEOUT + " ms. Killing the driver.",
+					Boolean.FALSE);
+			quitting.cancel(true);
+			kill(driver);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Stop the process of a locally started driver. Remote sessions are left to the hub's timeout.
+	 *
+	 * @param driver
+	 *            hanging session
+	 */
+	private static void kill(final WebDriver driver) {
+		if (!(driver instanceof RemoteWebDriver)) {
+			return;
+		}
+		CommandExecutor executor = ((RemoteWebDriver) driver).getCommandExecutor();
+		for (Class<?> type = executor.getClass(); type != null; type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				boolean isService = DriverService.class.isAssignableFrom(field.getType());
+				boolean isBinary = FirefoxBinary.class.isAssignableFrom(field.getType());
+				if (!isService && !isBinary) {
+					continue;
+				}
+				try {
+					field.setAccessible(true);
+					Object process = field.get(executor);
+					if (process instanceof DriverService) {
+						((DriverService) process).stop();
+					} else if (process instanceof FirefoxBinary) {
+						((FirefoxBinary) process).quit();
+					}
+				} catch (IllegalAccessException e) {
+					Logger.logStepResult("Unable to access the driver process: " + e, Boolean.FALSE);
+				}
+				return;
+			}
+		}
+		Logger.logStepResult("No local driver process to kill. The session is left to the hub.", Boolean.FALSE);
+	}
+
+	/**
+	 * @return executor for disposals, created on first usage
+	 */
+	private synchronized ExecutorService getDisposingExecutor() {
+		if (this.disposingExecutor == null) {
+			this.disposingExecutor =
+					new ThreadPoolExecutor(DISPOSING_THREADS, DISPOSING_THREADS, 0L, TimeUnit.MILLISECONDS,
+							new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), new DaemonThreadFactory("session-disposer"),
+							new ThreadPoolExecutor.CallerRunsPolicy());
+		}
+		return this.disposingExecutor;
+	}
+
+	/**
+	 * @return executor for the quit commands, created on first usage
+	 */
+	private synchronized ExecutorService getQuittingExecutor() {
+		if (this.quittingExecutor == null) {
+			this.quittingExecutor = Executors.newCachedThreadPool(new DaemonThreadFactory("session-quitter"));
+		}
+		return this.quittingExecutor;
+	}
+}
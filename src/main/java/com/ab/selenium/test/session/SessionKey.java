@@ -0,0 +1,95 @@
+package com.ab.selenium.test.session;
+
+import com.ab.selenium.test.PlatformTypeEnum;
+
+/**
+ * Identifies sessions, which are interchangeable. Two sessions with equal keys have been started for the same platform
+ * on the same operating system and hub, so one can be used instead of the other.
+ */
+public final class SessionKey {
+	/** Hub value used for locally started drivers. */
+	public static final String LOCAL_HUB = "local";
+
+	/** Platform the session is running on. */
+	private final PlatformTypeEnum fPlatformType;
+	/** Operating system as used in the capabilities. */
+	private final String fOperatingSystem;
+	/** URLs of the Selenium Grid hubs or {@link #LOCAL_HUB}. */
+	private final String fHub;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param platformType
+	 *            platform the session is running on
+	 * @param operatingSystem
+	 *            operating system as used in the capabilities
+	 * @param hub
+	 *            URLs of the Selenium Grid hubs serving the session, separated by commas. {@code null} for a local
+	 *            driver.
+	 */
+	public SessionKey(final PlatformTypeEnum platformType, final String operatingSystem, final String hub) {
+		this.fPlatformType = platformType;
+		this.fOperatingSystem = operatingSystem;
+		this.fHub = hub == null ? LOCAL_HUB : hub;
+	}
+
+	/**
+	 * @return platform the session is running on
+	 */
+	public PlatformTypeEnum getPlatformType() {
+		return this.fPlatformType;
+	}
+
+	/**
+	 * @return operating system as used in the capabilities
+	 */
+	public String getOperatingSystem() {
+		return this.fOperatingSystem;
+	}
+
+	/**
+	 * @return URLs of the hubs or {@link #LOCAL_HUB}
+	 */
+	public String getHub() {
+		return this.fHub;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SessionKey)) {
+			return false;
+		}
+		SessionKey other = (SessionKey) obj;
+		return this.fPlatformType == other.fPlatformType && equal(this.fOperatingSystem, other.fOperatingSystem)
+				&& this.fHub.equals(other.fHub);
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = this.fPlatformType == null ? 0 : this.fPlatformType.hashCode();
+		hash = 31 * hash + (this.fOperatingSystem == null ? 0 : this.fOperatingSystem.hashCode());
+		return 31 * hash + this.fHub.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "[" + this.fPlatformType + ", " + this.fOperatingSystem + ", " + this.fHub + "]";
+	}
+
+	/**
+	 * Null safe comparison.
+	 *
+	 * @param first
+	 *            may be {@code null}
+	 * @param second
+	 *            may be {@code null}
+	 * @return {@code true} if both are {@code null} or equal
+	 */
+	private static boolean equal(final String first, final String second) {
+		return first == null ? second == null : first.equals(second);
+	}
+}
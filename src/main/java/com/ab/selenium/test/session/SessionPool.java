@@ -0,0 +1,172 @@
+package com.ab.selenium.test.session;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import com.ab.selenium.test.Logger;
+
+/**
+ * Keeps browser sessions open between test classes. A session released by one test class is reset (cookies, storage,
+ * additional windows) and handed out again to the next test class asking for a session with the same
+ * {@link SessionKey}. Sessions are only quit at the end of the suite (see {@link #shutdown()}) or if they are found to
+ * be unhealthy.<br>
+ * An enum is used for implementation in order to make it a thread safe and serializable singleton.
+ */
+public enum SessionPool {
+	/** The only instance of the pool. */
+	INSTANCE;
+
+	/** Page to navigate to after the reset, so that the released session doesn't keep running the old page. */
+	private static final String BLANK_PAGE = "about:blank";
+	/** JavaScript snippet clearing the web storage of the currently displayed origin. */
+	private static final String CLEAR_STORAGE_JS = "try { window.localStorage.clear(); } catch (e) {}"
+			+ "try { window.sessionStorage.clear(); } catch (e) {}";
+
+	/** Idle sessions by key. */
+	private final Map<SessionKey, LinkedList<WebDriver>> idleSessions = new HashMap<SessionKey, LinkedList<WebDriver>>();
+
+	/**
+	 * Hand out an idle session. The session is verified to be still responsive before it is returned.
+	 *
+	 * @param key
+	 *            which kind of session is required
+	 * @return an open session or {@code null} if there is no idle session for the key
+	 */
+	public WebDriver acquire(final SessionKey key) {
+		WebDriver driver;
+		while ((driver = poll(key)) != null) {
+			if (isHealthy(driver)) {
+				Logger.logStepResult("Reusing session " + key, false);
+				return driver;
+			}
+			Logger.logStepResult("Discarding unresponsive session " + key, false);
+			quit(driver);
+		}
+		return null;
+	}
+
+	/**
+	 * Reset the session and keep it for the next test class. Should the reset fail, the session is quit.
+	 *
+	 * @param key
+	 *            which kind of session is released
+	 * @param driver
+	 *            the session, may be {@code null}
+	 */
+	public void release(final SessionKey key, final WebDriver driver) {
+		if (driver == null) {
+			return;
+		}
+		try {
+			reset(driver);
+		} catch (WebDriverException e) {
+			Logger.logStepResult("Unable to reset session " + key + ". Quitting it.", false);
+			quit(driver);
+			return;
+		}
+		synchronized (this.idleSessions) {
+			LinkedList<WebDriver> sessions = this.idleSessions.get(key);
+			if (sessions == null) {
+				sessions = new LinkedList<WebDriver>();
+				this.idleSessions.put(key, sessions);
+			}
+			sessions.add(driver);
+		}
+		Logger.logStepResult("Session " + key + " returned to the pool.", false);
+	}
+
+	/**
+	 * Quit all idle sessions. To be called at the end of the suite.
+	 */
+	public void shutdown() {
+		List<WebDriver> sessions = new ArrayList<WebDriver>();
+		synchronized (this.idleSessions) {
+			for (LinkedList<WebDriver> keySessions : this.idleSessions.values()) {
+				sessions.addAll(keySessions);
+			}
+			this.idleSessions.clear();
+		}
+		for (WebDriver driver : sessions) {
+			quit(driver);
+		}
+		Logger.logStepResult("Session pool closed " + sessions.size() + " session(s).", false);
+	}
+
+	/**
+	 * Take the next idle session out of the pool.
+	 *
+	 * @param key
+	 *            which kind of session is required
+	 * @return idle session or {@code null}
+	 */
+	private WebDriver poll(final SessionKey key) {
+		synchronized (this.idleSessions) {
+			LinkedList<WebDriver> sessions = this.idleSessions.get(key);
+			return sessions == null ? null : sessions.poll();
+		}
+	}
+
+	/**
+	 * Bring the session back to a clean state: one window, no cookies, empty storage and a blank page.
+	 *
+	 * @param driver
+	 *            session to reset
+	 * @throws WebDriverException
+	 *             if the session doesn't respond
+	 */
+	private static void reset(final WebDriver driver) {
+		Set<String> windowHandles = driver.getWindowHandles();
+		String keptWindow = null;
+		for (String windowHandle : windowHandles) {
+			if (keptWindow == null) {
+				keptWindow = windowHandle;
+				continue;
+			}
+			driver.switchTo().window(windowHandle);
+			driver.close();
+		}
+		if (keptWindow == null) {
+			throw new WebDriverException("Session has no open window.");
+		}
+		driver.switchTo().window(keptWindow);
+		driver.manage().deleteAllCookies();
+		if (driver instanceof JavascriptExecutor) {
+			// storage can only be cleared for the origin being displayed
+			((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE_JS);
+		}
+		driver.get(BLANK_PAGE);
+	}
+
+	/**
+	 * Probe the session with a cheap command.
+	 *
+	 * @param driver
+	 *            session to verify
+	 * @return {@code true} if the session responds
+	 */
+	static boolean isHealthy(final WebDriver driver) {
+		try {
+			return driver.getWindowHandle() != null;
+		} catch (WebDriverException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Quit the session in the background.
+	 *
+	 * @param driver
+	 *            session to quit
+	 */
+	private static void quit(final WebDriver driver) {
+		SessionDisposer.INSTANCE.dispose(driver);
+	}
+}
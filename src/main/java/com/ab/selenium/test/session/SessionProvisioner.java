@@ -0,0 +1,236 @@
+package com.ab.selenium.test.session;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import com.ab.selenium.test.Logger;
+
+/**
+ * Opens the sessions for the upcoming test classes in the background while the current test class is running. A test
+ * class then only claims the already open session (see {@link #claim(SessionRequest)}), which takes the session
+ * startup off the critical path.<br>
+ * The provisioner is configured once per suite with the sessions the suite is going to request, in the order of the
+ * test suite definition. At most {@code depth} sessions are provisioned ahead.<br>
+ * An enum is used for implementation in order to make it a thread safe and serializable singleton.
+ */
+public enum SessionProvisioner {
+	/** The only instance of the provisioner. */
+	INSTANCE;
+
+	/** Sessions still to be requested by the suite and not yet being provisioned. */
+	private final LinkedList<SessionRequest> upcoming = new LinkedList<SessionRequest>();
+	/** Sessions being provisioned or ready to be claimed. */
+	private final List<ProvisionedSession> provisioned = new ArrayList<ProvisionedSession>();
+	/** Threads opening the sessions. {@code null} until configured. */
+	private ExecutorService executor;
+	/** Maximal number of sessions to be provisioned ahead. */
+	private int fDepth;
+
+	/**
+	 * Configure the provisioner for the suite and start provisioning. Subsequent calls are ignored until
+	 * {@link #shutdown()} is called.
+	 *
+	 * @param upcomingRequests
+	 *            sessions the suite is going to request, in the expected order
+	 * @param depth
+	 *            number of sessions to be provisioned ahead. {@code 0} disables provisioning.
+	 */
+	public synchronized void configure(final List<SessionRequest> upcomingRequests, final int depth) {
+		if (this.executor != null || depth <= 0) {
+			return;
+		}
+		this.fDepth = depth;
+		this.upcoming.addAll(upcomingRequests);
+		this.executor = Executors.newFixedThreadPool(depth, new DaemonThreadFactory("session-provisioner"));
+		Logger.logStepResult("Provisioning up to " + depth + " of " + this.upcoming.size() + " session(s) ahead.",
+				false);
+		topUp();
+	}
+
+	/**
+	 * Claim a provisioned session. Waits if the session is still being opened.
+	 *
+	 * @param request
+	 *            the session required by the test class
+	 * @return the open session, which already shows the test target, or {@code null} if no session has been
+	 *         provisioned for the request or the provisioned session no longer responds (the caller has to open one
+	 *         itself)
+	 */
+	public WebDriver claim(final SessionRequest request) {
+		ProvisionedSession session;
+		synchronized (this) {
+			if (this.executor == null) {
+				return null;
+			}
+			session = take(request);
+			topUp();
+		}
+		if (session == null) {
+			return null;
+		}
+		try {
+			WebDriver driver = session.driver.get();
+			// the session may have been opened long before and timed out on the grid meanwhile
+			if (SessionPool.isHealthy(driver)) {
+				return driver;
+			}
+			Logger.logStepResult("Discarding unresponsive provisioned session " + request, false);
+			SessionDisposer.INSTANCE.dispose(driver);
+		} catch (ExecutionException e) {
+			Logger.logStepResult("Provisioning of session " + request + " has failed: " + e.getCause(), false);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+
+	/**
+	 * Give up the session for the request, since the test class has been served otherwise (e.g. by the
+	 * {@link SessionPool}). A session provisioned for the request is disposed once open, without waiting for it, and
+	 * the next upcoming session is provisioned in its place. No provisioning thread is blocked waiting for the session
+	 * to open: the provisioning task disposes the session itself, if it is withdrawn before being open.
+	 *
+	 * @param request
+	 *            the session no longer required by the test class
+	 */
+	public synchronized void withdraw(final SessionRequest request) {
+		if (this.executor == null) {
+			return;
+		}
+		ProvisionedSession session = take(request);
+		if (session != null) {
+			session.withdraw();
+		}
+		topUp();
+	}
+
+	/**
+	 * Stop provisioning and quit all sessions, which have not been claimed. To be called at the end of the suite.
+	 */
+	public void shutdown() {
+		List<ProvisionedSession> unclaimed;
+		synchronized (this) {
+			if (this.executor == null) {
+				return;
+			}
+			this.executor.shutdown();
+			this.executor = null;
+			this.upcoming.clear();
+			unclaimed = new ArrayList<ProvisionedSession>(this.provisioned);
+			this.provisioned.clear();
+		}
+		for (ProvisionedSession session : unclaimed) {
+			try {
+				SessionDisposer.INSTANCE.dispose(session.driver.get());
+			} catch (ExecutionException ignore) {
+				// nothing to quit
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Take the session provisioned for the request out of the provisioned sessions. If there is none, the request is
+	 * not provisioned later on either, since the caller gets its session elsewhere.
+	 *
+	 * @param request
+	 *            the session required by the test class
+	 * @return the provisioned session or {@code null}
+	 */
+	private synchronized ProvisionedSession take(final SessionRequest request) {
+		for (Iterator<ProvisionedSession> it = this.provisioned.iterator(); it.hasNext();) {
+			ProvisionedSession candidate = it.next();
+			if (candidate.request.equals(request)) {
+				it.remove();
+				return candidate;
+			}
+		}
+		this.upcoming.remove(request);
+		return null;
+	}
+
+	/**
+	 * Start provisioning the next upcoming sessions until {@link #fDepth} sessions are being provisioned.
+	 */
+	private synchronized void topUp() {
+		while (this.provisioned.size() < this.fDepth && !this.upcoming.isEmpty()) {
+			final SessionRequest request = this.upcoming.poll();
+			final ProvisionedSession session = new ProvisionedSession(request);
+			session.driver = this.executor.submit(new Callable<WebDriver>() {
+				@Override
+				public WebDriver call() throws Exception {
+					WebDriver newDriver = DriverFactory.createDriver(request);
+					try {
+						DriverFactory.prepareSession(newDriver, request);
+					} catch (WebDriverException e) {
+						newDriver.quit();
+						throw e;
+					}
+					session.opened(newDriver);
+					return newDriver;
+				}
+			});
+			this.provisioned.add(session);
+		}
+	}
+
+	/**
+	 * Session being opened in the background.
+	 */
+	private static final class ProvisionedSession {
+		/** Request the session is opened for. */
+		private final SessionRequest request;
+		/** The session once opened. Set right after submitting the provisioning task. */
+		private Future<WebDriver> driver;
+		/** The session, if open. */
+		private WebDriver open;
+		/** Whether the session is no longer required. */
+		private boolean withdrawn;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param request
+		 *            request the session is opened for
+		 */
+		ProvisionedSession(final SessionRequest request) {
+			this.request = request;
+		}
+
+		/**
+		 * Called by the provisioning task once the session is open. Disposes the session, if it has been withdrawn
+		 * meanwhile.
+		 *
+		 * @param newDriver
+		 *            the open session
+		 */
+		synchronized void opened(final WebDriver newDriver) {
+			if (this.withdrawn) {
+				SessionDisposer.INSTANCE.dispose(newDriver);
+			} else {
+				this.open = newDriver;
+			}
+		}
+
+		/**
+		 * Give up the session. It is disposed right away if open, otherwise by the provisioning task once open.
+		 */
+		synchronized void withdraw() {
+			this.withdrawn = true;
+			if (this.open != null) {
+				SessionDisposer.INSTANCE.dispose(this.open);
+			}
+		}
+	}
+}
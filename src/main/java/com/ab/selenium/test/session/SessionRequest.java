@@ -0,0 +1,213 @@
+package com.ab.selenium.test.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.ab.selenium.test.PlatformTypeEnum;
+
+/**
+ * Everything needed to open a session for a test class: where to start the browser, which browser and which page to
+ * load initially. Created from the test suite parameters.
+ */
+public final class SessionRequest {
+	/** Default for the test suite parameter {@code gridServer}: no grid, start the driver locally. */
+	public static final String DEFAULT_GRID_SERVER = "";
+	/** Default for the test suite parameter {@code port}. */
+	public static final String DEFAULT_PORT = "4444";
+	/** Default for the test suite parameter {@code os}. */
+	public static final String DEFAULT_OPERATING_SYSTEM = "WINDOWS";
+
+	/** Selenium Grid server names separated by commas, empty for local execution. */
+	private final String fGridServer;
+	/** Selenium Grid server port. */
+	private final String fPort;
+	/** Path to the driver executable for local execution. May be {@code null}. */
+	private final String fDriverPath;
+	/** Operating system as defined in {@link org.openqa.selenium.Platform}. */
+	private final String fOperatingSystem;
+	/** Platform to open the session for. */
+	private final PlatformTypeEnum fPlatformType;
+	/** Page to load initially. */
+	private final String fTestTarget;
+
+	/**
+	 * Constructor. The parameters have the same meaning as the test suite parameters of
+	 * {@link com.ab.selenium.test.AbstractTest#startSession AbstractTest.startSession}.
+	 *
+	 * @param gridServer
+	 *            Selenium Grid server to run on (empty to execute the test locally)
+	 * @param port
+	 *            Selenium Grid server port
+	 * @param driverPath
+	 *            path to the driver executable for local test execution. May be {@code null}.
+	 * @param operatingSystem
+	 *            operating system as defined in {@link org.openqa.selenium.Platform}
+	 * @param platformType
+	 *            platform to open the session for
+	 * @param testTarget
+	 *            the start website to open in the browser
+	 */
+	public SessionRequest(final String gridServer, final String port, final String driverPath,
+			final String operatingSystem, final PlatformTypeEnum platformType, final String testTarget) {
+		this.fGridServer = gridServer == null ? DEFAULT_GRID_SERVER : gridServer;
+		this.fPort = port == null ? DEFAULT_PORT : port;
+		this.fDriverPath = driverPath;
+		this.fOperatingSystem = operatingSystem == null ? DEFAULT_OPERATING_SYSTEM : operatingSystem;
+		this.fPlatformType = platformType;
+		this.fTestTarget = testTarget;
+	}
+
+	/**
+	 * Create the requests from test suite parameters, one for each platform listed in the parameter {@code platform}
+	 * (separated by commas). Missing optional parameters are replaced by their defaults.
+	 *
+	 * @param parameters
+	 *            test suite parameters as provided by {@link org.testng.xml.XmlTest#getAllParameters()}
+	 * @return requests, empty if the parameter {@code platform} is missing or contains unknown platforms
+	 */
+	public static List<SessionRequest> fromParameters(final Map<String, String> parameters) {
+		List<SessionRequest> requests = new ArrayList<SessionRequest>();
+		String platforms = parameters.get("platform");
+		if (platforms == null) {
+			return requests;
+		}
+		for (String platform : platforms.split(",")) {
+			PlatformTypeEnum platformType = PlatformTypeEnum.getByName(platform.trim());
+			if (platformType == null) {
+				return new ArrayList<SessionRequest>();
+			}
+			requests.add(new SessionRequest(parameters.get("gridServer"), parameters.get("port"),
+					parameters.get("driverPath"), parameters.get("os"), platformType, parameters.get("testTarget")));
+		}
+		return requests;
+	}
+
+	/**
+	 * @return Selenium Grid server names separated by commas, empty for local execution
+	 */
+	public String getGridServer() {
+		return this.fGridServer;
+	}
+
+	/**
+	 * @return Selenium Grid server port
+	 */
+	public String getPort() {
+		return this.fPort;
+	}
+
+	/**
+	 * @return path to the driver executable for local execution or {@code null}
+	 */
+	public String getDriverPath() {
+		return this.fDriverPath;
+	}
+
+	/**
+	 * @return operating system as defined in {@link org.openqa.selenium.Platform}
+	 */
+	public String getOperatingSystem() {
+		return this.fOperatingSystem;
+	}
+
+	/**
+	 * @return platform to open the session for
+	 */
+	public PlatformTypeEnum getPlatformType() {
+		return this.fPlatformType;
+	}
+
+	/**
+	 * @return page to load initially
+	 */
+	public String getTestTarget() {
+		return this.fTestTarget;
+	}
+
+	/**
+	 * Should the session be started on a Selenium Grid?
+	 *
+	 * @return {@code true} if the grid server is not empty
+	 */
+	public boolean useGridServer() {
+		return this.fGridServer.trim().length() > 0;
+	}
+
+	/**
+	 * Generate the URLs of the Selenium Grid hubs. The grid server parameter may list several hubs separated by commas,
+	 * each given as {@code host} or {@code host:port}. Hubs without a port use the port parameter.
+	 *
+	 * @return URLs to communicate with the hubs, empty for local execution
+	 */
+	public List<String> getGridServerURLs() {
+		List<String> urls = new ArrayList<String>();
+		for (String hub : this.fGridServer.split(",")) {
+			hub = hub.trim();
+			if (hub.length() == 0) {
+				continue;
+			}
+			if (hub.indexOf(':') < 0) {
+				hub = hub + ":" + this.fPort.trim();
+			}
+			urls.add("http://" + hub + "/wd/hub");
+		}
+		return urls;
+	}
+
+	/**
+	 * @return key identifying sessions, which can serve this request
+	 */
+	public SessionKey getKey() {
+		if (!useGridServer()) {
+			return new SessionKey(this.fPlatformType, this.fOperatingSystem, null);
+		}
+		// any of the listed hubs may serve the request
+		StringBuilder hubs = new StringBuilder();
+		for (String url : getGridServerURLs()) {
+			if (hubs.length() > 0) {
+				hubs.append(',');
+			}
+			hubs.append(url);
+		}
+		return new SessionKey(this.fPlatformType, this.fOperatingSystem, hubs.toString());
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SessionRequest)) {
+			return false;
+		}
+		SessionRequest other = (SessionRequest) obj;
+		return getKey().equals(other.getKey()) && equal(this.fDriverPath, other.fDriverPath)
+				&& equal(this.fTestTarget, other.fTestTarget);
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = getKey().hashCode();
+		hash = 31 * hash + (this.fDriverPath == null ? 0 : this.fDriverPath.hashCode());
+		return 31 * hash + (this.fTestTarget == null ? 0 : this.fTestTarget.hashCode());
+	}
+
+	@Override
+	public String toString() {
+		return getKey() + " -> " + this.fTestTarget;
+	}
+
+	/**
+	 * Null safe comparison.
+	 *
+	 * @param first
+	 *            may be {@code null}
+	 * @param second
+	 *            may be {@code null}
+	 * @return {@code true} if both are {@code null} or equal
+	 */
+	private static boolean equal(final String first, final String second) {
+		return first == null ? second == null : first.equals(second);
+	}
+}
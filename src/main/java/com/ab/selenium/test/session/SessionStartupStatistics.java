@@ -0,0 +1,90 @@
+package com.ab.selenium.test.session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.ab.selenium.test.Logger;
+import com.ab.selenium.test.PlatformTypeEnum;
+import com.ab.selenium.util.StatisticsUtils;
+
+/**
+ * Collects the durations of the session startup phases (see {@link StartupPhase}) per platform and hub for the whole
+ * run. At the end of the suite a summary with percentiles is logged (see {@link #report()}), showing which phase makes
+ * opening sessions slow.<br>
+ * An enum is used for implementation in order to make it a thread safe and serializable singleton.
+ */
+public enum SessionStartupStatistics {
+	/** The only instance of the statistics. */
+	INSTANCE;
+
+	/** Percentiles shown in the summary. */
+	private static final int[] PERCENTILES = { 50, 90, 99 };
+
+	/** Durations in milliseconds by "platform @ hub" and phase. */
+	private final Map<String, Map<StartupPhase, List<Long>>> durations =
+			new TreeMap<String, Map<StartupPhase, List<Long>>>();
+
+	/**
+	 * Record the duration of a phase.
+	 *
+	 * @param platformType
+	 *            platform of the session
+	 * @param hub
+	 *            URL of the hub or {@link SessionKey#LOCAL_HUB}
+	 * @param phase
+	 *            measured phase
+	 * @param millis
+	 *            duration in milliseconds
+	 */
+	public void record(final PlatformTypeEnum platformType, final String hub, final StartupPhase phase,
+			final long millis) {
+		String target = platformType + " @ " + hub;
+		synchronized (this.durations) {
+			Map<StartupPhase, List<Long>> phases = this.durations.get(target);
+			if (phases == null) {
+				phases = new EnumMap<StartupPhase, List<Long>>(StartupPhase.class);
+				this.durations.put(target, phases);
+			}
+			List<Long> phaseDurations = phases.get(phase);
+			if (phaseDurations == null) {
+				phaseDurations = new ArrayList<Long>();
+				phases.put(phase, phaseDurations);
+			}
+			phaseDurations.add(Long.valueOf(millis));
+		}
+	}
+
+	/**
+	 * Log the summary of all recorded durations and start over. To be called at the end of the suite.
+	 */
+	public void report() {
+		Map<String, Map<StartupPhase, List<Long>>> recorded;
+		synchronized (this.durations) {
+			if (this.durations.isEmpty()) {
+				return;
+			}
+			recorded = new TreeMap<String, Map<StartupPhase, List<Long>>>(this.durations);
+			this.durations.clear();
+		}
+		Logger.logStepResult("Session startup durations in ms:", false);
+		for (Map.Entry<String, Map<StartupPhase, List<Long>>> target : recorded.entrySet()) {
+			for (Map.Entry<StartupPhase, List<Long>> phase : target.getValue().entrySet()) {
+				List<Long> sorted = new ArrayList<Long>(phase.getValue());
+				Collections.sort(sorted);
+				StringBuilder line = new StringBuilder();
+				line.append(target.getKey()).append(" | ").append(phase.getKey()).append(" | n=")
+						.append(sorted.size());
+				for (int percentile : PERCENTILES) {
+					line.append(" p").append(percentile).append('=')
+							.append(StatisticsUtils.percentile(sorted, percentile));
+				}
+				line.append(" max=").append(sorted.get(sorted.size() - 1));
+				Logger.logStepResult(line.toString(), false);
+			}
+		}
+	}
+}
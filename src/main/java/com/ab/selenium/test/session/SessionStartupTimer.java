@@ -0,0 +1,57 @@
+package com.ab.selenium.test.session;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.ab.selenium.test.PlatformTypeEnum;
+
+/**
+ * Measures the phases of opening one session. Each {@link #lap(StartupPhase)} ends a phase, which started with the
+ * previous lap. The durations are handed to the {@link SessionStartupStatistics} once the hub is known (see
+ * {@link #finish(String)}). Not thread safe, to be used by the thread opening the session.
+ */
+final class SessionStartupTimer {
+	/** Platform of the session. */
+	private final PlatformTypeEnum fPlatformType;
+	/** Measured durations by phase. In nanoseconds. */
+	private final Map<StartupPhase, Long> durations = new EnumMap<StartupPhase, Long>(StartupPhase.class);
+	/** Start of the current phase. */
+	private long phaseStart = System.nanoTime();
+
+	/**
+	 * Constructor. Starts the first phase.
+	 *
+	 * @param platformType
+	 *            platform of the session
+	 */
+	SessionStartupTimer(final PlatformTypeEnum platformType) {
+		this.fPlatformType = platformType;
+	}
+
+	/**
+	 * End the phase and start the next one.
+	 *
+	 * @param phase
+	 *            the ended phase
+	 */
+	void lap(final StartupPhase phase) {
+		long now = System.nanoTime();
+		Long previous = this.durations.get(phase);
+		this.durations.put(phase, Long.valueOf((previous == null ? 0L : previous.longValue()) + now - this.phaseStart));
+		this.phaseStart = now;
+	}
+
+	/**
+	 * Record the measured phases.
+	 *
+	 * @param hub
+	 *            URL of the hub the session has been opened on or {@link SessionKey#LOCAL_HUB}
+	 */
+	void finish(final String hub) {
+		for (Map.Entry<StartupPhase, Long> entry : this.durations.entrySet()) {
+			SessionStartupStatistics.INSTANCE.record(this.fPlatformType, hub, entry.getKey(),
+					entry.getValue().longValue() / 1000000L);
+		}
+		this.durations.clear();
+	}
+}
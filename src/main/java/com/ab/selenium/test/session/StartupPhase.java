@@ -0,0 +1,37 @@
+package com.ab.selenium.test.session;
+
+/**
+ * Phases of opening a session, as measured by the {@link SessionStartupStatistics}.
+ */
+public enum StartupPhase {
+	/** Building the capabilities, including loading the Firefox profile. */
+	CAPABILITIES("capabilities"),
+	/** Constructing the driver, i.e. starting the browser locally or on the grid. */
+	DRIVER_CONSTRUCTION("driver construction"),
+	/** Augmenting the remote driver with the capabilities of the browser. */
+	AUGMENTATION("augmentation"),
+	/** Maximising the browser window. */
+	MAXIMISE_WINDOW("maximise window"),
+	/** Deleting the cookies. */
+	DELETE_COOKIES("delete cookies"),
+	/** Loading the test target. */
+	INITIAL_LOAD("initial load");
+
+	/** Name used in the summary. */
+	private final String fDescription;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param description
+	 *            name used in the summary
+	 */
+	private StartupPhase(final String description) {
+		this.fDescription = description;
+	}
+
+	@Override
+	public String toString() {
+		return this.fDescription;
+	}
+}
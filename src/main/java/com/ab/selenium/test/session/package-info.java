@@ -0,0 +1,4 @@
+/**
+ * Classes managing the lifecycle of browser sessions used by the tests.
+ */
+package com.ab.selenium.test.session;
@@ -6,17 +6,31 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.imageio.ImageIO;
 
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
 
+import com.ab.selenium.test.ExecutionContext;
 import com.ab.selenium.util.image.ImageComparator;
 
 /**
- * Use this class to capture screen.
+ * Use this class to capture screen. The driver, the screenshot folder and the capture index are kept in the
+ * {@link ExecutionContext} of the current thread.<br>
+ * Elements are cropped from a decoded screenshot of the page (see {@link ScreenshotFrame}), which is kept per driver
+ * and reused as long as the page has neither changed nor scrolled. Capturing several elements at once (see
+ * {@link #captureElements(List, String)}) takes a single screenshot.
  */
 public enum CaptureScreenshots {
 	/**
@@ -24,21 +38,19 @@ public enum CaptureScreenshots {
 	 */
 	INSTANCE;
 
-	/** An index for the next picture to be captured. */
-	private int captureIndex = 0;
-
-	/** Directory for screenshots. */
-	private File outputDir = new File(System.getProperty("java.io.tmpdir"));
-
 	/** Extension for compressed images. */
 	private static final String CAPTURE_COMPRESSED_EXT = "JPG";
 	/** Extension for not compressed images. */
 	private static final String CAPTURE_UNCOMPRESSED_EXT = "PNG";
 	/** default extension for capture files (jpg). */
 	private static final String DEFAULT_CAPTURE_FILE_EXT = CAPTURE_COMPRESSED_EXT;
+	/** JavaScript snippet reading the state of the page shown by a screenshot. */
+	private static final String FRAME_STATE_JS = JavaScriptUtil.loadScript("/javascript/frameState.js");
+	/** JavaScript snippet reading location and size of several elements. */
+	private static final String ELEMENT_RECTS_JS = JavaScriptUtil.loadScript("/javascript/elementRects.js");
 
-	/** WebDriver set to capture the screen. */
-	private WebDriver fDriver;
+	/** Last screenshot by driver. Weak keys, so that the frames of quit drivers are released. */
+	private final Map<WebDriver, ScreenshotFrame> frames = new WeakHashMap<WebDriver, ScreenshotFrame>();
 
 	/**
 	 * Private constructor.
@@ -115,7 +127,8 @@ public enum CaptureScreenshots {
 	 *             if there were problems to write to the file
 	 */
 	public void captureScreen(final String message) throws IOException {
-		if (this.fDriver != null && this.fDriver.getWindowHandle() != null) {
+		WebDriver driver = ExecutionContext.current().getDriver();
+		if (driver != null && driver.getWindowHandle() != null) {
 			File file = null;
 			captureScreen(file, message);
 		} else {
@@ -157,15 +170,165 @@ public enum CaptureScreenshots {
 	 */
 	public File captureElement(final RenewableWebElement element, final String message, String captureFileExt)
 			throws IOException {
-		byte[] screenshotAs = element.getScreenshotAs(OutputType.BYTES);
-		BufferedImage subimage = ImageIO.read(new ByteArrayInputStream(screenshotAs));
-		BufferedImage imageRGB =
-				new BufferedImage(subimage.getWidth(), subimage.getHeight(), BufferedImage.TYPE_INT_RGB);
-		imageRGB.createGraphics().drawImage(subimage, 0, 0, Color.WHITE, null);
+		Point location = element.getLocation();
+		Dimension size = element.getSize();
+		BufferedImage part = captureFrame(element.getDriver()).crop(location, size);
+		if (part == null) {
+			throw new IOException("Element " + element.getSearchTerm() + " is outside of the screenshot.");
+		}
+		return storeCapture(part, message, captureFileExt);
+	}
+
+	/**
+	 * Capturing several elements from a single screenshot. Location and size of the elements are read by a single
+	 * script call as well. The files are named like by {@link #captureElement(RenewableWebElement, String)}, with the
+	 * position of the element in the list appended to the {@code message}.
+	 * 
+	 * @param elements
+	 *            elements of the same page, which should be captured
+	 * @param message
+	 *            suffix for the file names.
+	 * @return {@link File}s, where the captured images have been stored, in the order of the elements. {@code null}
+	 *         for elements outside of the screenshot.
+	 * @throws IOException
+	 *             when trying to store the images.
+	 */
+	public List<File> captureElements(final List<RenewableWebElement> elements, final String message)
+			throws IOException {
+		return captureElements(elements, message, DEFAULT_CAPTURE_FILE_EXT);
+	}
+
+	/**
+	 * Capturing several elements from a single screenshot, see {@link #captureElements(List, String)}.
+	 * 
+	 * @param elements
+	 *            elements of the same page, which should be captured
+	 * @param message
+	 *            suffix for the file names.
+	 * @param captureFileExt
+	 *            file extension. PNG would result in uncompressed image. JPG comresses the image with quality loss.
+	 * @return {@link File}s, where the captured images have been stored, in the order of the elements. {@code null}
+	 *         for elements outside of the screenshot.
+	 * @throws IOException
+	 *             when trying to store the images.
+	 */
+	public List<File> captureElements(final List<RenewableWebElement> elements, final String message,
+			final String captureFileExt) throws IOException {
+		List<File> files = new ArrayList<File>(elements.size());
+		if (elements.isEmpty()) {
+			return files;
+		}
+		WebDriver driver = elements.get(0).getDriver();
+		List<int[]> rects = readRects(driver, elements);
+		ScreenshotFrame frame = captureFrame(driver);
+		for (int i = 0; i < elements.size(); i++) {
+			int[] rect = rects.get(i);
+			BufferedImage part = frame.crop(new Point(rect[0], rect[1]), new Dimension(rect[2], rect[3]));
+			files.add(part == null ? null : storeCapture(part, message + "_" + (i + 1), captureFileExt));
+		}
+		return files;
+	}
+
+	/**
+	 * Get a decoded screenshot of the page. The last screenshot of the driver is reused if the page has neither been
+	 * changed (DOM mutations, input) nor scrolled since. Checking this costs a script call instead of a screenshot.
+	 * 
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @return screenshot of the page
+	 * @throws IOException
+	 *             if the used {@link WebDriver} doesn't implement {@link TakesScreenshot} or the screenshot cannot be
+	 *             decoded.
+	 */
+	public ScreenshotFrame captureFrame(final WebDriver driver) throws IOException {
+		if (!(driver instanceof TakesScreenshot)) {
+			throw new IOException("WebDriver doesn't support screenshot");
+		}
+		Map<String, Object> state = readFrameState(driver);
+		synchronized (this.frames) {
+			ScreenshotFrame frame = this.frames.get(driver);
+			if (frame != null && frame.shows(state)) {
+				return frame;
+			}
+		}
+		byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+		ScreenshotFrame frame = new ScreenshotFrame(ImageIO.read(new ByteArrayInputStream(screenshot)), state);
+		synchronized (this.frames) {
+			this.frames.put(driver, frame);
+		}
+		return frame;
+	}
+
+	/**
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @return state of the page as returned by {@link #FRAME_STATE_JS}, {@code null} if it cannot be read
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> readFrameState(final WebDriver driver) {
+		if (!(driver instanceof JavascriptExecutor)) {
+			return null;
+		}
+		return (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(FRAME_STATE_JS);
+	}
+
+	/**
+	 * Read location and size of the elements by a single script call. Should an element be unknown yet or have become
+	 * stale, they are read element by element, so that the elements are searched for again.
+	 * 
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @param elements
+	 *            elements of the page
+	 * @return x, y, width and height per element
+	 */
+	private static List<int[]> readRects(final WebDriver driver, final List<RenewableWebElement> elements) {
+		List<int[]> rects = new ArrayList<int[]>(elements.size());
+		List<WebElement> webElements = new ArrayList<WebElement>(elements.size());
+		for (RenewableWebElement element : elements) {
+			webElements.add(element.getWebElement());
+		}
+		if (driver instanceof JavascriptExecutor && !webElements.contains(null)) {
+			try {
+				for (Object rect : (List<?>) ((JavascriptExecutor) driver).executeScript(ELEMENT_RECTS_JS,
+						webElements)) {
+					List<?> values = (List<?>) rect;
+					rects.add(new int[] { ((Number) values.get(0)).intValue(), ((Number) values.get(1)).intValue(),
+							((Number) values.get(2)).intValue(), ((Number) values.get(3)).intValue() });
+				}
+				return rects;
+			} catch (StaleElementReferenceException e) {
+				rects.clear();
+			}
+		}
+		for (RenewableWebElement element : elements) {
+			Point location = element.getLocation();
+			Dimension size = element.getSize();
+			rects.add(new int[] { location.x, location.y, size.width, size.height });
+		}
+		return rects;
+	}
+
+	/**
+	 * Store a captured image in the output directory of the {@link ExecutionContext}.
+	 * 
+	 * @param image
+	 *            captured image without transparency
+	 * @param message
+	 *            suffix for the file name.
+	 * @param captureFileExt
+	 *            image format
+	 * @return {@link File}, where the captured image has been stored.
+	 * @throws IOException
+	 *             when trying to store the image.
+	 */
+	private static File storeCapture(final BufferedImage image, final String message, final String captureFileExt)
+			throws IOException {
 		File resultFile =
-				new File(this.outputDir.getAbsolutePath() + File.separator + generateNewCaptureIndex() + "_" + message
+				new File(ExecutionContext.current().getOutputDir().getAbsolutePath() + File.separator
+						+ generateNewCaptureIndex() + "_" + message
 						+ "." + DEFAULT_CAPTURE_FILE_EXT);
-		ImageIO.write(imageRGB, captureFileExt, resultFile);
+		ImageIO.write(image, captureFileExt, resultFile);
 		return resultFile;
 	}
 
@@ -183,7 +346,8 @@ public enum CaptureScreenshots {
 	 *             if there were problems writing the file
 	 */
 	private void captureScreen(final File outputFileDir, final String fileExplanation) throws IOException {
-		if (this.fDriver != null) {
+		WebDriver driver = ExecutionContext.current().getDriver();
+		if (driver != null) {
 			String outputfilePath;
 			// can capture, since WebDriver is set
 			if (outputFileDir != null) {
@@ -191,10 +355,10 @@ public enum CaptureScreenshots {
 				outputfilePath = outputFileDir.getAbsolutePath();
 			} else {
 				// storing in the default directory
-				outputfilePath = this.outputDir.getAbsolutePath();
+				outputfilePath = ExecutionContext.current().getOutputDir().getAbsolutePath();
 			}
 			outputfilePath += File.separator + generateNewCaptureIndex() + "_" + fileExplanation;
-			captureScreen(this.fDriver, outputfilePath, DEFAULT_CAPTURE_FILE_EXT);
+			captureScreen(driver, outputfilePath, DEFAULT_CAPTURE_FILE_EXT);
 		} else {
 			throw new RuntimeException("Trying to capture screen, although the WebDriver has not been set.");
 		}
@@ -202,14 +366,15 @@ public enum CaptureScreenshots {
 
 	/**
 	 * Fills up the leading 0's up to length of the private variable {@code digitsPlaceholder} and increases the
-	 * {@link #captureIndex} for the next run.
+	 * capture index of the {@link ExecutionContext} for the next run.
 	 * 
 	 * @return a standardised capture index as string.
 	 */
-	private String generateNewCaptureIndex() {
+	private static String generateNewCaptureIndex() {
 		String digitsPlaceholder = "0000";
-		int missingDigits = digitsPlaceholder.length() - (this.captureIndex + "").length();
-		return digitsPlaceholder.substring(0, missingDigits) + this.captureIndex++;
+		int captureIndex = ExecutionContext.current().nextCaptureIndex();
+		int missingDigits = digitsPlaceholder.length() - (captureIndex + "").length();
+		return digitsPlaceholder.substring(0, missingDigits) + captureIndex;
 	}
 
 	/**
@@ -233,7 +398,7 @@ public enum CaptureScreenshots {
 						+ "Please provide a location with permission to write in.", e);
 			}
 			// if (storeFolder != null) {
-			this.outputDir = storeFolder;
+			ExecutionContext.current().setOutputDir(storeFolder);
 			// }
 		}
 	}
@@ -270,7 +435,7 @@ public enum CaptureScreenshots {
 	 */
 	public void resetCounter() {
 		// reset capture index
-		this.captureIndex = 0;
+		ExecutionContext.current().resetCaptureIndex();
 	}
 
 	/**
@@ -280,7 +445,7 @@ public enum CaptureScreenshots {
 	 *            the {@link WebDriver} displaying the page.
 	 */
 	public void setDriver(final WebDriver driver) {
-		this.fDriver = driver;
+		ExecutionContext.current().setDriver(driver);
 	}
 
 	/**
@@ -291,6 +456,6 @@ public enum CaptureScreenshots {
 	 * @return {@code true} if ready to capture screenshots.
 	 */
 	public boolean isReady() {
-		return (this.fDriver != null);
+		return (ExecutionContext.current().getDriver() != null);
 	}
 }
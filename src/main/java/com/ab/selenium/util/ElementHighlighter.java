@@ -1,20 +1,20 @@
 package com.ab.selenium.util;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 
+import com.ab.selenium.test.ExecutionContext;
+
+/**
+ * Highlights elements, e.g. to make them visible on screenshots. The driver and the original styles are kept in the
+ * {@link ExecutionContext} of the current thread.
+ */
 public enum ElementHighlighter {
 	INSTANCE;
 
-	/** WebDriver set to highlight the elements. */
-	private JavascriptExecutor jsDriver;
-
-	Map<By, String> xpathToStyle = new HashMap<By, String>();
-
 	static final String HIGHLIGHT_STYLE = "background: yellow; border: 2px solid red;";
 	static final String SET_STYLE_ATTRIBUTE_TEMPLATE = "arguments[0].setAttribute('style', '%s');";
 	static final String HIGHLIGHT_ELEMENT_JS = String.format(SET_STYLE_ATTRIBUTE_TEMPLATE, HIGHLIGHT_STYLE);
@@ -31,9 +31,9 @@ public enum ElementHighlighter {
 	public void highlightElement(RenewableWebElement element) {
 
 		// store the original value
-		this.xpathToStyle.put(element.getSearchTerm(), element.getAttribute("style"));
+		ExecutionContext.current().getHighlightedStyles().put(element.getSearchTerm(), element.getAttribute("style"));
 		// execute the JavaScript to highlight
-		this.jsDriver.executeScript(HIGHLIGHT_ELEMENT_JS, element.getWebElement());
+		getJsDriver().executeScript(HIGHLIGHT_ELEMENT_JS, element.getWebElement());
 
 	}
 
@@ -43,9 +43,10 @@ public enum ElementHighlighter {
 	 * @param element
 	 */
 	public void restoreElement(RenewableWebElement element) {
-		if (this.xpathToStyle.containsKey(element.getSearchTerm())) {
-			String originalStyle = this.xpathToStyle.remove(element.getSearchTerm());
-			this.jsDriver.executeScript(String.format(SET_STYLE_ATTRIBUTE_TEMPLATE, originalStyle),
+		Map<By, String> highlightedStyles = ExecutionContext.current().getHighlightedStyles();
+		if (highlightedStyles.containsKey(element.getSearchTerm())) {
+			String originalStyle = highlightedStyles.remove(element.getSearchTerm());
+			getJsDriver().executeScript(String.format(SET_STYLE_ATTRIBUTE_TEMPLATE, originalStyle),
 					element.getWebElement());
 		} else {
 			throw new IllegalArgumentException("Cannot restore an element, which has not been highlighted before.");
@@ -53,7 +54,14 @@ public enum ElementHighlighter {
 	}
 
 	public void setDriver(WebDriver driver) {
-		this.jsDriver = (JavascriptExecutor) driver;
+		ExecutionContext.current().setDriver(driver);
+	}
+
+	/**
+	 * @return the driver of the current {@link ExecutionContext} as {@link JavascriptExecutor}
+	 */
+	private static JavascriptExecutor getJsDriver() {
+		return (JavascriptExecutor) ExecutionContext.current().getDriver();
 	}
 
 }
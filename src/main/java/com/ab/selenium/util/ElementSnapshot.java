@@ -0,0 +1,194 @@
+package com.ab.selenium.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+
+/**
+ * State of an element at one point in time, read by a single script call (see
+ * {@link RenewableWebElement#snapshot(java.util.List, java.util.List)}). The snapshot is immutable and doesn't talk to
+ * the browser, so assertions against it cost no further commands.<br>
+ * The values follow the WebDriver commands of the same name: the text is the rendered, trimmed text, attributes are
+ * read as properties if the element has a property of simple type with that name, boolean attributes (like
+ * {@code disabled} or {@code checked}) are {@code "true"} or {@code null}, the location is relative to the document. Only the visibility check is simplified (hidden or collapsed, zero opacity, not displayed ancestors, no
+ * layout box).
+ */
+public final class ElementSnapshot {
+	/** Tag name in lower case. */
+	private final String tagName;
+	/** Rendered text. */
+	private final String text;
+	/** Is the element visible? */
+	private final boolean displayed;
+	/** Is the element enabled? */
+	private final boolean enabled;
+	/** Is the element selected or checked? */
+	private final boolean selected;
+	/** Horizontal position relative to the document. */
+	private final int x;
+	/** Vertical position relative to the document. */
+	private final int y;
+	/** Width in pixels. */
+	private final int width;
+	/** Height in pixels. */
+	private final int height;
+	/** Values of the requested attributes, {@code null} for missing attributes. */
+	private final Map<String, String> attributes;
+	/** Computed values of the requested CSS properties. */
+	private final Map<String, String> styles;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param state
+	 *            state as returned by the script {@code elementSnapshot.js}
+	 */
+	@SuppressWarnings("unchecked")
+	ElementSnapshot(final Map<String, Object> state) {
+		this.tagName = (String) state.get("tagName");
+		this.text = (String) state.get("text");
+		this.displayed = Boolean.TRUE.equals(state.get("displayed"));
+		this.enabled = Boolean.TRUE.equals(state.get("enabled"));
+		this.selected = Boolean.TRUE.equals(state.get("selected"));
+		this.x = intValue(state.get("x"));
+		this.y = intValue(state.get("y"));
+		this.width = intValue(state.get("width"));
+		this.height = intValue(state.get("height"));
+		this.attributes = copy((Map<String, Object>) state.get("attributes"));
+		this.styles = copy((Map<String, Object>) state.get("styles"));
+	}
+
+	/**
+	 * @return tag name in lower case
+	 */
+	public String getTagName() {
+		return this.tagName;
+	}
+
+	/**
+	 * @return rendered text without leading and trailing white space
+	 */
+	public String getText() {
+		return this.text;
+	}
+
+	/**
+	 * @return {@code true} if the element is visible
+	 */
+	public boolean isDisplayed() {
+		return this.displayed;
+	}
+
+	/**
+	 * @return {@code true} if the element is not disabled
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * @return {@code true} if the element is a selected option or a checked input
+	 */
+	public boolean isSelected() {
+		return this.selected;
+	}
+
+	/**
+	 * @return location relative to the document
+	 */
+	public Point getLocation() {
+		return new Point(this.x, this.y);
+	}
+
+	/**
+	 * @return size in pixels
+	 */
+	public Dimension getSize() {
+		return new Dimension(this.width, this.height);
+	}
+
+	/**
+	 * @return location and size
+	 */
+	public Rectangle getRect() {
+		return new Rectangle(getLocation(), getSize());
+	}
+
+	/**
+	 * @param name
+	 *            name of an attribute requested for the snapshot
+	 * @return its value or {@code null} if the element doesn't have it
+	 * @throws IllegalArgumentException
+	 *             if the attribute has not been requested
+	 */
+	public String getAttribute(final String name) {
+		if (!this.attributes.containsKey(name)) {
+			throw new IllegalArgumentException("Attribute " + name + " is not part of the snapshot.");
+		}
+		return this.attributes.get(name);
+	}
+
+	/**
+	 * @return values of all requested attributes by name, unmodifiable
+	 */
+	public Map<String, String> getAttributes() {
+		return this.attributes;
+	}
+
+	/**
+	 * @param propertyName
+	 *            name of a CSS property requested for the snapshot
+	 * @return its computed value
+	 * @throws IllegalArgumentException
+	 *             if the property has not been requested
+	 */
+	public String getCssValue(final String propertyName) {
+		if (!this.styles.containsKey(propertyName)) {
+			throw new IllegalArgumentException("CSS property " + propertyName + " is not part of the snapshot.");
+		}
+		return this.styles.get(propertyName);
+	}
+
+	/**
+	 * @return computed values of all requested CSS properties by name, unmodifiable
+	 */
+	public Map<String, String> getCssValues() {
+		return this.styles;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("<%s> '%s' displayed=%s enabled=%s selected=%s at (%d, %d) %dx%d %s %s", this.tagName,
+				this.text, Boolean.valueOf(this.displayed), Boolean.valueOf(this.enabled),
+				Boolean.valueOf(this.selected), Integer.valueOf(this.x), Integer.valueOf(this.y),
+				Integer.valueOf(this.width), Integer.valueOf(this.height), this.attributes, this.styles);
+	}
+
+	/**
+	 * @param number
+	 *            number as returned by the script ({@code Long} or {@code Double})
+	 * @return its value as {@code int}, {@code 0} for {@code null}
+	 */
+	private static int intValue(final Object number) {
+		return number == null ? 0 : ((Number) number).intValue();
+	}
+
+	/**
+	 * @param values
+	 *            values as returned by the script, may be {@code null}
+	 * @return unmodifiable copy keeping the order, with the values as strings
+	 */
+	private static Map<String, String> copy(final Map<String, Object> values) {
+		Map<String, String> copy = new LinkedHashMap<String, String>();
+		if (values != null) {
+			for (Map.Entry<String, Object> entry : values.entrySet()) {
+				copy.put(entry.getKey(), entry.getValue() == null ? null : String.valueOf(entry.getValue()));
+			}
+		}
+		return Collections.unmodifiableMap(copy);
+	}
+}
@@ -22,8 +22,9 @@ public abstract class ExpectedConditionFactory {
 		ExpectedCondition<Boolean> condition = new ExpectedCondition<Boolean>() {
 			@Override
 			public Boolean apply(final WebDriver driver) {
+				// the element returned by the wait has just been found, no need to look it up again
 				return Boolean.valueOf(AbstractPage.waitForElement(finder,
-						Long.valueOf((AbstractPage.WAIT_TIME_LIMIT).longValue() / 2), driver).isElementPresent());
+						Long.valueOf((AbstractPage.WAIT_TIME_LIMIT).longValue() / 2), driver) != null);
 			}
 
 			@Override
@@ -1,5 +1,10 @@
 package com.ab.selenium.util;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
 /**
  * Utility class for JavaScript calls, which are not as intuitive as they should be.
  */
@@ -89,4 +94,34 @@ public final class JavaScriptUtil {
 
 	}
 
+	/**
+	 * Read a JavaScript snippet located within the project. The line breaks are kept, so the snippet may contain line
+	 * comments.
+	 * 
+	 * @param resourcePath
+	 *            absolute path of the resource, e.g. {@code /javascript/waitForElements.js}
+	 * @return content of the resource
+	 */
+	public static String loadScript(final String resourcePath) {
+		InputStream stream = JavaScriptUtil.class.getResourceAsStream(resourcePath);
+		if (stream == null) {
+			throw new RuntimeException("Unable to locate the file " + resourcePath);
+		}
+		StringBuilder content = new StringBuilder();
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					content.append(line).append('\n');
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to read the file " + resourcePath, e);
+		}
+		return content.toString();
+	}
+
 }
@@ -11,7 +11,9 @@ import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 
 import com.ab.selenium.pages.AbstractPage;
+import com.ab.selenium.pages.PageElementBinder;
 import com.ab.selenium.test.Logger;
+import com.ab.selenium.util.wait.Deadline;
 
 /**
  * When the switch from one page to another one has to be tried out until it succeeds, the factory does it.
@@ -20,6 +22,12 @@ import com.ab.selenium.test.Logger;
 public abstract class PageFactory {
 	/** Maximum number of retries when performing transactions. */
 	private static final int MAX_RETRIES = 3;
+	/**
+	 * Time limit of a whole transition including its retries and the construction of the new page. The waits within
+	 * the transition only use what is left of it (see {@link Deadline}). 90000 ms.
+	 */
+	private static final Long TRANSITION_TIME_LIMIT = Long.valueOf(MAX_RETRIES
+			* AbstractPage.WAIT_TIME_LIMIT.longValue());
 
 	/**
 	 * Clicks to an element max of 3 times and tries to create a new page Instance. Should be used when the click itself
@@ -62,7 +70,7 @@ public abstract class PageFactory {
 				}
 			}
 			try {
-				returnPage = returnPageClass.getConstructor(AbstractPage.class).newInstance(parentPage);
+				returnPage = PageElementBinder.INSTANCE.createPage(returnPageClass, parentPage);
 				break;
 			} catch (InstantiationException e) {
 				e.printStackTrace();
@@ -110,6 +118,26 @@ public abstract class PageFactory {
 	public static void switchToNewWindowByClick(final By finder, final WebDriver driver) {
 		final Set<String> oldWindowHandles = driver.getWindowHandles();
 
+		Deadline.Scope scope = Deadline.within(TRANSITION_TIME_LIMIT.longValue()).enter();
+		try {
+			clickAndSwitchToNewWindow(finder, driver, oldWindowHandles);
+		} finally {
+			scope.close();
+		}
+	}
+
+	/**
+	 * see {@link #switchToNewWindowByClick(By, WebDriver)}. Runs within the deadline of the transition.
+	 * 
+	 * @param finder
+	 *            to find the element to click
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @param oldWindowHandles
+	 *            windows open before the click
+	 */
+	private static void clickAndSwitchToNewWindow(final By finder, final WebDriver driver,
+			final Set<String> oldWindowHandles) {
 		for (int i = 1; i < MAX_RETRIES; i++) {
 			if (AbstractPage.isElementPresent(finder, driver)
 					&& (oldWindowHandles.size() == driver.getWindowHandles().size())) {
@@ -166,6 +194,33 @@ public abstract class PageFactory {
 	public static AbstractPage goToPageVia(final By finder, final AbstractPage page,
 			final Class<? extends AbstractPage> returnPageClass, final ExpectedCondition<Boolean> pre,
 			final ExpectedCondition<Boolean> post) {
+		Deadline.Scope scope = Deadline.within(TRANSITION_TIME_LIMIT.longValue()).enter();
+		try {
+			return clickToPage(finder, page, returnPageClass, pre, post);
+		} finally {
+			scope.close();
+		}
+	}
+
+	/**
+	 * see {@link #goToPageVia(By, AbstractPage, Class, ExpectedCondition, ExpectedCondition)}. Runs within the
+	 * deadline of the transition.
+	 * 
+	 * @param finder
+	 *            Is used to identify the element for click
+	 * @param page
+	 *            page where the element to click on is located
+	 * @param returnPageClass
+	 *            class of the page to return
+	 * @param pre
+	 *            condition to be ensured before the click or {@code null}
+	 * @param post
+	 *            condition to be ensured after the click or {@code null}
+	 * @return resulting page
+	 */
+	private static AbstractPage clickToPage(final By finder, final AbstractPage page,
+			final Class<? extends AbstractPage> returnPageClass, final ExpectedCondition<Boolean> pre,
+			final ExpectedCondition<Boolean> post) {
 		if (pre != null) {
 			AbstractPage.waitForCondition(pre, AbstractPage.WAIT_TIME_LIMIT, page.getDriver());
 		}
@@ -1,14 +1,13 @@
 package com.ab.selenium.util;
 
 import java.awt.image.BufferedImage;
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.imageio.ImageIO;
 
@@ -25,7 +24,6 @@ import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.remote.RemoteWebElement;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 
 import com.ab.selenium.pages.AbstractPage;
@@ -43,49 +41,29 @@ import com.ab.selenium.test.Logger;
  * the search term is known.</li>
  * <li>
  * The convenience constructor {@link RenewableWebElement#RenewableWebElement(WebDriver, WebElement)} should be only
- * used if the search term is not known. Then a heuristic is used to determine the {@link By#xpath(String)} and store it
- * for the repeated search.</li>
+ * used if the search term is not known. Then a short CSS selector is derived, preferring unique ids, data attributes
+ * and names over positions, and stored for the repeated search (see {@code locatorOf.js}).</li>
  * </ul>
+ * The element is not checked before a command. Should the command fail as the element has become stale, the element is
+ * searched for again and the command repeated (see {@link #execute(ElementCommand)}).
  */
 public class RenewableWebElement implements WebElement, TakesScreenshot {
 
-	/** JavaScript snippet to calculate xPath for an html element. Located within the project. */
-	private static final String GET_XPATH_JS_FILE = "/javascript/getPathTo.js";
-	/** JavaScript snippet as read from {@link #GET_XPATH_JS_FILE}. */
-	static final String GET_XPATH_JS;
+	/** JavaScript function deriving a unique CSS selector for an element. Located within the project. */
+	private static final String LOCATOR_OF_JS = JavaScriptUtil.loadScript("/javascript/locatorOf.js");
+	/** JavaScript snippet deriving the CSS selector of one element. */
+	static final String GET_LOCATOR_JS = LOCATOR_OF_JS + "return locatorOf(arguments[0]);";
+	/** JavaScript snippet deriving the CSS selectors of a list of elements. */
+	static final String GET_LOCATORS_JS = LOCATOR_OF_JS + "var locators = [];\n"
+			+ "for (var i = 0; i < arguments[0].length; i++) {\n" + "\tlocators.push(locatorOf(arguments[0][i]));\n"
+			+ "}\n" + "return locators;";
+	/** JavaScript snippet reading the state of an element for {@link #snapshot(List, List)}. */
+	private static final String ELEMENT_SNAPSHOT_JS = JavaScriptUtil.loadScript("/javascript/elementSnapshot.js");
 	/** Maximal number of retries (3). */
 	private static final int RETRY_COUNT = 3;
 
-	static {
-		String fileContent = "";
-		BufferedReader reader = null;
-		try {
-			reader = new BufferedReader(new InputStreamReader(
-					RenewableWebElement.class.getResourceAsStream(GET_XPATH_JS_FILE)));
-			String line;
-			while ((line = reader.readLine()) != null) {
-				fileContent += line;
-			}
-		} catch (FileNotFoundException e) {
-			throw new RuntimeException("Unable to locate the file getPathTo.js", e);
-		} catch (IOException e) {
-			throw new RuntimeException("Unable to read the file getPathTo.js", e);
-		} finally {
-			try {
-				if (reader != null) {
-					reader.close();
-				}
-			} catch (IOException ignore) {
-				Logger.logStepResult(
-						String.format("There were problems closing the file [%s] after reading", GET_XPATH_JS_FILE),
-						false);
-			}
-		}
-		GET_XPATH_JS = fileContent;
-	}
-
 	/**
-	 * How to find this WebElement. May not be xPath, especially if the constructor
+	 * How to find this WebElement. May not be a CSS selector, especially if the constructor
 	 * {@link #RenewableWebElement(WebDriver, By)} is used.
 	 */
 	private By fSearchTerm;
@@ -93,7 +71,7 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 	 * WebElement underlying this object. May sometimes be null. See also {@link #findElement()},
 	 * {@link #getWebElement()}
 	 */
-	private RemoteWebElement webElement;
+	private WebElement webElement;
 	/** WebDriver displaying the page with this element. */
 	private WebDriver fDriver;
 
@@ -112,7 +90,7 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 	}
 
 	/**
-	 * Determine the XPath for the {@code Element} in order to use it for repeated search.
+	 * Determine a CSS selector for the {@code Element} in order to use it for repeated search.
 	 * 
 	 * @param driver
 	 *            {@link WebDriver} displaying the content
@@ -120,40 +98,73 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 	 *            {@link WebElement}, which should be represented by this object.
 	 */
 	public RenewableWebElement(final WebDriver driver, final WebElement element) {
-		this(driver, element, getXPath(driver, element), true);
+		this(driver, element, getLocator(driver, element), true);
 	}
 
 	/**
-	 * Determines the xPath to find the provided WebElement. Works only if all parameters are not null.
+	 * Determines the CSS selector to find the provided WebElement. Works only if all parameters are not null.
 	 * 
 	 * @param driver
 	 *            WebDriver displaying the page.
 	 * @param element
 	 *            WebElement on the page.
-	 * @return By.xpath, which can be used to find the element on the page.
+	 * @return By.cssSelector, which can be used to find the element on the page.
 	 */
-	private static By getXPath(final WebDriver driver, final WebElement element) {
+	private static By getLocator(final WebDriver driver, final WebElement element) {
 		// ensure the parameters are not null
 		if (element == null) {
-			throw new NullPointerException("WebElement parameter for getXpath is null. Cannot proceed.");
+			throw new NullPointerException("WebElement parameter for getLocator is null. Cannot proceed.");
 		}
 		if (driver == null) {
 			throw new NullPointerException("WebDriver is null. Cannot proceed.");
 		}
-		// now get the xpath, waiting half the time you normally do
-		return By.xpath(AbstractPage.waitForCondition(new ExpectedCondition<String>() {
-			public String apply(final WebDriver aDriver) {
-				String xpath = (String) ((JavascriptExecutor) aDriver).executeScript(GET_XPATH_JS, element);
-				Logger.logStepResult("WebElement initiated. xpath=" + xpath, false);
-				return xpath;
+		return getLocators(driver, Collections.singletonList(element)).get(0);
+	}
+
+	/**
+	 * Determines the CSS selectors of several elements by a single script call.
+	 * 
+	 * @param driver
+	 *            WebDriver displaying the page.
+	 * @param elements
+	 *            WebElements on the page.
+	 * @return By.cssSelector for each element, in the order of the elements.
+	 * @throws WebDriverException
+	 *             if there is an element without selector, as it is not part of the document (detached, stale or
+	 *             within a shadow root). Not retried, since waiting doesn't attach the element.
+	 */
+	private static List<By> getLocators(final WebDriver driver, final List<WebElement> elements) {
+		// the wait ends with the first result, even with missing selectors. Waiting half the time you normally do.
+		List<?> selectors = AbstractPage.waitForCondition(new ExpectedCondition<List<?>>() {
+			public List<?> apply(final WebDriver aDriver) {
+				List<?> locators;
+				try {
+					locators = (List<?>) ((JavascriptExecutor) aDriver).executeScript(GET_LOCATORS_JS, elements);
+				} catch (StaleElementReferenceException e) {
+					// detached elements cannot even be passed to the script, they have no selector either
+					return Collections.nCopies(elements.size(), null);
+				}
+				Logger.logStepResult("[" + locators.size() + "] WebElements initiated.", false);
+				return locators;
 			}
 
 			@Override
 			public String toString() {
-				return String.format("Getting xPath for an element [%s] using JavaScript.", element);
+				return String.format("Getting CSS selectors for [%d] elements using JavaScript.",
+						Integer.valueOf(elements.size()));
 			}
-		}, Long.valueOf(AbstractPage.WAIT_TIME_LIMIT.longValue() / 2), driver));
-
+		}, Long.valueOf(AbstractPage.WAIT_TIME_LIMIT.longValue() / 2), driver);
+		List<By> finders = new ArrayList<By>(selectors.size());
+		for (Object selector : selectors) {
+			if (selector == null) {
+				// not part of the document, e.g. within a shadow root
+				throw new WebDriverException("Unable to derive a CSS selector for one of the elements " + elements
+						+ ", as it is not part of the document.");
+			}
+			// some drivers return other CharSequences than String
+			finders.add(By.cssSelector(selector.toString()));
+		}
+		return finders;
 	}
 
 	/**
@@ -172,19 +183,31 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 			final boolean alreadySearched) {
 		this.fDriver = driver;
 		this.fSearchTerm = searchTerm;
-		this.webElement = (RemoteWebElement) element;
+		this.webElement = element;
 		// this.isAlreadySearched = alreadySearched;
 	}
 
 	public void clear() {
-		getWebElement().clear();
+		execute(new ElementCommand<Void>() {
+			@Override
+			public Void execute(final WebElement element) {
+				element.clear();
+				return null;
+			}
+		});
 	}
 
 	@Override
 	public final void click() {
 		for (int i = 0; i < RETRY_COUNT; i++) {
 			try {
-				getWebElement().click();
+				execute(new ElementCommand<Void>() {
+					@Override
+					public Void execute(final WebElement element) {
+						element.click();
+						return null;
+					}
+				});
 				break;
 			} catch (Exception e) {
 				if (e.getMessage()!=null && e.getMessage().contains("Timed out waiting for page load")) {
@@ -195,9 +218,13 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 		}
 	}
 
-	public RenewableWebElement findElement(By by) {
-		WebElement thisElement = getWebElement();
-		return new RenewableWebElement(this.fDriver, thisElement.findElement(by));
+	public RenewableWebElement findElement(final By by) {
+		return new RenewableWebElement(this.fDriver, execute(new ElementCommand<WebElement>() {
+			@Override
+			public WebElement execute(final WebElement element) {
+				return element.findElement(by);
+			}
+		}));
 	}
 
 	/**
@@ -216,12 +243,21 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 	 * @return Actually returning {@link RenewableWebElement} objects in a list.
 	 */
 	public final List<WebElement> findElements(final By by) {
-		WebElement thisElement = getWebElement();
-		List<WebElement> elements = thisElement.findElements(by);
+		List<WebElement> elements = execute(new ElementCommand<List<WebElement>>() {
+			@Override
+			public List<WebElement> execute(final WebElement element) {
+				return element.findElements(by);
+			}
+		});
 		Logger.logStepResult("Found [" + elements.size() + "] elements", false);
-		List<WebElement> returnElements = new ArrayList<WebElement>();
+		List<WebElement> returnElements = new ArrayList<WebElement>(elements.size());
+		if (elements.isEmpty()) {
+			return returnElements;
+		}
+		// one script call for all elements instead of one per element
+		List<By> locators = getLocators(this.fDriver, elements);
 		for (int i = 0; i < elements.size(); i++) {
-			returnElements.add(new RenewableWebElement(this.fDriver, elements.get(i)));
+			returnElements.add(new RenewableWebElement(this.fDriver, elements.get(i), locators.get(i), true));
 		}
 		return returnElements;
 	}
@@ -237,7 +273,12 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 		String attributeValue = null;
 		for (int i = 0; i < RETRY_COUNT; i++) {
 			try {
-				attributeValue = getWebElement().getAttribute(name);
+				attributeValue = execute(new ElementCommand<String>() {
+					@Override
+					public String execute(final WebElement element) {
+						return element.getAttribute(name);
+					}
+				});
 				break;
 			} catch (Exception e) {
 				if (e.getMessage() != null && e.getMessage().contains("Timed out waiting for page load")) {
@@ -251,7 +292,12 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 
 	@Override
 	public final String getCssValue(final String propertyName) {
-		return getWebElement().getCssValue(propertyName);
+		return execute(new ElementCommand<String>() {
+			@Override
+			public String execute(final WebElement element) {
+				return element.getCssValue(propertyName);
+			}
+		});
 	}
 
 	/**
@@ -259,19 +305,34 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 	 */
 	@Override
 	public final Point getLocation() {
-		return getWebElement().getLocation();
+		return execute(new ElementCommand<Point>() {
+			@Override
+			public Point execute(final WebElement element) {
+				return element.getLocation();
+			}
+		});
 	}
 
 	/**
 	 * @return size of the element as {@link Dimension}.
 	 */
 	public final Dimension getSize() {
-		return getWebElement().getSize();
+		return execute(new ElementCommand<Dimension>() {
+			@Override
+			public Dimension execute(final WebElement element) {
+				return element.getSize();
+			}
+		});
 	}
 
 	@Override
 	public Rectangle getRect() {
-		return getWebElement().getRect();
+		return execute(new ElementCommand<Rectangle>() {
+			@Override
+			public Rectangle execute(final WebElement element) {
+				return element.getRect();
+			}
+		});
 	}
 
 	// /**
@@ -279,7 +340,12 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 	// */
 	@Override
 	public final String getTagName() {
-		return getWebElement().getTagName();
+		return execute(new ElementCommand<String>() {
+			@Override
+			public String execute(final WebElement element) {
+				return element.getTagName();
+			}
+		});
 	}
 
 	@Override
@@ -287,7 +353,12 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 		String text = null;
 		for (int i = 0; i < RETRY_COUNT; i++) {
 			try {
-				text = getWebElement().getText();
+				text = execute(new ElementCommand<String>() {
+					@Override
+					public String execute(final WebElement element) {
+						return element.getText();
+					}
+				});
 				break;
 			} catch (Exception e) {
 				if (e.getMessage()!=null && e.getMessage().contains("Timed out waiting for page load")) {
@@ -303,11 +374,15 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 	public final boolean isDisplayed() {
 		for (int i = 1; i <= RETRY_COUNT; i++) {
 			try {
-				WebElement element = getWebElement();
-				if (element != null) {
-					return element.isDisplayed();
+				if (getWebElement() == null) {
+					return false;
 				}
-				return false;
+				return execute(new ElementCommand<Boolean>() {
+					@Override
+					public Boolean execute(final WebElement element) {
+						return Boolean.valueOf(element.isDisplayed());
+					}
+				}).booleanValue();
 			} catch (Throwable e) {
 				if (i == RETRY_COUNT) {
 					e.printStackTrace();
@@ -322,49 +397,88 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 
 	@Override
 	public final boolean isEnabled() {
-		return getWebElement().isEnabled();
+		return execute(new ElementCommand<Boolean>() {
+			@Override
+			public Boolean execute(final WebElement element) {
+				return Boolean.valueOf(element.isEnabled());
+			}
+		}).booleanValue();
 	}
 
 	@Override
 	public final boolean isSelected() {
-		return getWebElement().isSelected();
+		return execute(new ElementCommand<Boolean>() {
+			@Override
+			public Boolean execute(final WebElement element) {
+				return Boolean.valueOf(element.isSelected());
+			}
+		}).booleanValue();
 	}
 
 	@Override
 	public final void sendKeys(final CharSequence... keysToSend) {
-		getWebElement().sendKeys(keysToSend);
+		execute(new ElementCommand<Void>() {
+			@Override
+			public Void execute(final WebElement element) {
+				element.sendKeys(keysToSend);
+				return null;
+			}
+		});
 	}
 
 	@Override
 	public final void submit() {
-		getWebElement().submit();
+		execute(new ElementCommand<Void>() {
+			@Override
+			public Void execute(final WebElement element) {
+				element.submit();
+				return null;
+			}
+		});
 	}
 
 	/**
-	 * Retrieve the WebElement behind this renewable one.
+	 * Retrieve the WebElement behind this renewable one. It is only searched for if not known yet, so it may have
+	 * become stale. The commands of this object renew it when needed.
 	 * 
-	 * @return the underlying WebElement
+	 * @return the underlying WebElement or {@code null} if it cannot be found
 	 */
 	public final WebElement getWebElement() {
 		if (this.webElement == null) {
 			findElement();
-		} else {
-			// try to access the element
+		}
+		return this.webElement;
+	}
+
+	/**
+	 * Run the command on the underlying element without checking it before. Only if the command fails as the element
+	 * has become stale, the element is searched for again and the command is repeated, up to {@link #RETRY_COUNT}
+	 * times.
+	 * 
+	 * @param command
+	 *            what to do with the element
+	 * @return result of the command
+	 * @throws NoSuchElementException
+	 *             if the element cannot be found (any more)
+	 * @throws StaleElementReferenceException
+	 *             if the element has become stale again after each search
+	 */
+	private <T> T execute(final ElementCommand<T> command) {
+		for (int i = 1;; i++) {
+			WebElement element = getWebElement();
+			if (element == null) {
+				throw new NoSuchElementException("Unable to locate element: " + this.fSearchTerm);
+			}
 			try {
-				this.webElement.getTagName();
+				return command.execute(element);
 			} catch (StaleElementReferenceException e) {
-				// need to find the element after it has been modified
-				findElement();
-			} catch (WebDriverException e) {
-				findElement();
-			} catch (NullPointerException e) {
-				// RemoteWebElement.java:323 (Boolean) null
-				findElement();
-			} catch (IllegalArgumentException e) {
+				if (i >= RETRY_COUNT) {
+					throw e;
+				}
+				// the page has replaced the element
 				findElement();
 			}
 		}
-		return this.webElement;
 	}
 
 	public void reset() {
@@ -372,20 +486,65 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 		// this.isAlreadySearched = false;
 	}
 
+	/**
+	 * Read the state of the element by a single command: tag name, text, visibility, enabled and selected state,
+	 * location and size and the values of the given attributes.
+	 * 
+	 * @param attributeNames
+	 *            attributes to be read
+	 * @return immutable snapshot of the element
+	 * @see #snapshot(List, List)
+	 */
+	public final ElementSnapshot snapshot(final String... attributeNames) {
+		return snapshot(Arrays.asList(attributeNames), Collections.<String> emptyList());
+	}
+
+	/**
+	 * Read the state of the element by a single command instead of a command (and retries) for every getter. Should
+	 * the element have become stale, it is searched for again like for any other command.
+	 * 
+	 * @param attributeNames
+	 *            attributes to be read
+	 * @param cssProperties
+	 *            CSS properties to be read, as computed by the browser
+	 * @return immutable snapshot of the element
+	 */
+	public final ElementSnapshot snapshot(final List<String> attributeNames, final List<String> cssProperties) {
+		return execute(new ElementCommand<ElementSnapshot>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public ElementSnapshot execute(final WebElement element) {
+				return new ElementSnapshot((Map<String, Object>) ((JavascriptExecutor) RenewableWebElement.this.fDriver)
+						.executeScript(ELEMENT_SNAPSHOT_JS, element, attributeNames, cssProperties));
+			}
+		});
+	}
+
 	/**
 	 * Checks if the WebElement defined by the search term exists on the current page.
 	 * 
 	 * @return true if it exists, otherwise false.
 	 */
 	public final boolean isElementPresent() {
-		return getWebElement() != null;
+		try {
+			return execute(new ElementCommand<String>() {
+				@Override
+				public String execute(final WebElement element) {
+					return element.getTagName();
+				}
+			}) != null;
+		} catch (NoSuchElementException e) {
+			return false;
+		} catch (StaleElementReferenceException e) {
+			return false;
+		}
 	}
 
 	private void findElement() {
 		// forget the previous object
 		reset();
 		try {
-			this.webElement = (RemoteWebElement) this.fDriver.findElement(this.fSearchTerm);
+			this.webElement = this.fDriver.findElement(this.fSearchTerm);
 		} catch (TimeoutException ignore) {
 			// Do nothing
 		} catch (NoSuchElementException ignore) {
@@ -407,38 +566,49 @@ public class RenewableWebElement implements WebElement, TakesScreenshot {
 		return this.fSearchTerm;
 	}
 
+	/**
+	 * @return WebDriver displaying the page with this element
+	 */
+	final WebDriver getDriver() {
+		return this.fDriver;
+	}
+
+	/**
+	 * Cut this element out of a screenshot of the page. The screenshot is shared with other elements as long as the
+	 * page doesn't change (see {@link CaptureScreenshots#captureFrame(WebDriver)}).
+	 */
 	@Override
 	public final <X> X getScreenshotAs(final OutputType<X> format) throws WebDriverException {
-		byte[] wholeScreen;
-		X outputScreenshot = null;
-		ByteArrayOutputStream baos = null;
-		Point location = getWebElement().getLocation();
-		Dimension size = getWebElement().getSize();
-		if (this.fDriver instanceof TakesScreenshot) {
-			try {
-				// get the whole page as bytes
-				wholeScreen = ((TakesScreenshot) this.fDriver).getScreenshotAs(OutputType.BYTES);
-				// cut out the relevant part
-				BufferedImage screenshot = ImageIO.read(new ByteArrayInputStream(wholeScreen));
-				BufferedImage subimage = screenshot.getSubimage(location.x, location.y, size.width, size.height);
-				baos = new ByteArrayOutputStream();
-				ImageIO.write(subimage, "PNG", baos);
-				baos.flush();
-				outputScreenshot = format.convertFromPngBytes(baos.toByteArray());
-				baos.close();
-			} catch (IOException e) {
-				if (baos != null) {
-					try {
-						baos.close();
-					} catch (IOException e1) {
-						Logger.logStepResult(String.format(
-								"There were problems closing the ByteArrayOutputStream [%s] after writing", baos),
-								false);
-					}
-				}
-				throw new WebDriverException(e);
+		if (!(this.fDriver instanceof TakesScreenshot)) {
+			return null;
+		}
+		Point location = getLocation();
+		Dimension size = getSize();
+		try {
+			BufferedImage part = CaptureScreenshots.INSTANCE.captureFrame(this.fDriver).crop(location, size);
+			if (part == null) {
+				throw new WebDriverException("Element " + this.fSearchTerm + " is outside of the screenshot.");
 			}
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			ImageIO.write(part, "PNG", baos);
+			return format.convertFromPngBytes(baos.toByteArray());
+		} catch (IOException e) {
+			throw new WebDriverException(e);
 		}
-		return outputScreenshot;
+	}
+
+	/**
+	 * Command to be run on the underlying element.
+	 * 
+	 * @param <T>
+	 *            type of the result
+	 */
+	private interface ElementCommand<T> {
+		/**
+		 * @param element
+		 *            the underlying element, freshly searched for if the previous one has become stale
+		 * @return result of the command, {@code null} for commands without result
+		 */
+		T execute(WebElement element);
 	}
 }
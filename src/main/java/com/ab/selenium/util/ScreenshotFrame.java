@@ -0,0 +1,111 @@
+package com.ab.selenium.util;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+
+/**
+ * Decoded screenshot of the page, from which any number of elements can be cropped (see
+ * {@link CaptureScreenshots#captureFrame(org.openqa.selenium.WebDriver)}). The frame remembers the state of the page
+ * when captured (document version, scroll position and viewport as read by {@code frameState.js}), so it can be reused
+ * as long as the page still shows the same.<br>
+ * Screenshots of the viewport only (e.g. by Chrome) are told apart from screenshots of the whole page by their size;
+ * the element locations, which are relative to the document, are shifted by the scroll position for them.
+ */
+public final class ScreenshotFrame {
+	/** The decoded screenshot. */
+	private final BufferedImage image;
+	/** Document and its version, {@code null} if the version cannot be tracked. */
+	private final String token;
+	/** Horizontal scroll position. */
+	private final int scrollX;
+	/** Vertical scroll position. */
+	private final int scrollY;
+	/** Width of the viewport. */
+	private final int viewportWidth;
+	/** Height of the viewport. */
+	private final int viewportHeight;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param image
+	 *            the decoded screenshot
+	 * @param state
+	 *            state of the page as returned by {@code frameState.js}, {@code null} if unknown
+	 */
+	ScreenshotFrame(final BufferedImage image, final Map<String, Object> state) {
+		this.image = image;
+		this.token = state == null ? null : (String) state.get("token");
+		this.scrollX = state == null ? 0 : intValue(state.get("scrollX"));
+		this.scrollY = state == null ? 0 : intValue(state.get("scrollY"));
+		this.viewportWidth = state == null ? 0 : intValue(state.get("viewportWidth"));
+		this.viewportHeight = state == null ? 0 : intValue(state.get("viewportHeight"));
+	}
+
+	/**
+	 * @param state
+	 *            current state of the page as returned by {@code frameState.js}, {@code null} if unknown
+	 * @return {@code true} if the page still shows what has been captured, i.e. the frame can be reused
+	 */
+	boolean shows(final Map<String, Object> state) {
+		return state != null && this.token != null && this.token.equals(state.get("token"))
+				&& this.scrollX == intValue(state.get("scrollX")) && this.scrollY == intValue(state.get("scrollY"))
+				&& this.viewportWidth == intValue(state.get("viewportWidth"))
+				&& this.viewportHeight == intValue(state.get("viewportHeight"));
+	}
+
+	/**
+	 * Cut out the part of an element. The part is clamped to the frame, so elements partly outside of the screenshot
+	 * are cut off.
+	 * 
+	 * @param location
+	 *            location of the element relative to the document
+	 * @param size
+	 *            size of the element
+	 * @return copy of the part without transparency or {@code null} if the element is completely outside of the
+	 *         screenshot
+	 */
+	public BufferedImage crop(final Point location, final Dimension size) {
+		boolean viewportOnly =
+				this.image.getWidth() <= this.viewportWidth && this.image.getHeight() <= this.viewportHeight;
+		int left = location.x - (viewportOnly ? this.scrollX : 0);
+		int top = location.y - (viewportOnly ? this.scrollY : 0);
+		int x = Math.max(0, left);
+		int y = Math.max(0, top);
+		int width = Math.min(this.image.getWidth(), left + size.width) - x;
+		int height = Math.min(this.image.getHeight(), top + size.height) - y;
+		if (width <= 0 || height <= 0) {
+			return null;
+		}
+		BufferedImage part = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		part.createGraphics().drawImage(this.image.getSubimage(x, y, width, height), 0, 0, Color.WHITE, null);
+		return part;
+	}
+
+	/**
+	 * @return width of the screenshot
+	 */
+	public int getWidth() {
+		return this.image.getWidth();
+	}
+
+	/**
+	 * @return height of the screenshot
+	 */
+	public int getHeight() {
+		return this.image.getHeight();
+	}
+
+	/**
+	 * @param number
+	 *            number as returned by the script ({@code Long} or {@code Double})
+	 * @return its value as {@code int}, {@code 0} for {@code null}
+	 */
+	private static int intValue(final Object number) {
+		return number == null ? 0 : ((Number) number).intValue();
+	}
+}
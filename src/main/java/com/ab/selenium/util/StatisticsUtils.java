@@ -0,0 +1,30 @@
+package com.ab.selenium.util;
+
+import java.util.List;
+
+/**
+ * Class for the statistics reported at the end of the suite.
+ */
+public final class StatisticsUtils {
+
+	/**
+	 * Private constructor. Currently not used, since all methods are static.
+	 */
+	private StatisticsUtils() {
+
+	}
+
+	/**
+	 * Nearest rank percentile.
+	 *
+	 * @param sorted
+	 *            ascending values, not empty
+	 * @param percentile
+	 *            percentile between 1 and 100
+	 * @return the value at the percentile
+	 */
+	public static long percentile(final List<Long> sorted, final int percentile) {
+		int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+		return sorted.get(Math.max(rank, 1) - 1).longValue();
+	}
+}
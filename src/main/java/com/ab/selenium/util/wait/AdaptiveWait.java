@@ -0,0 +1,221 @@
+package com.ab.selenium.util.wait;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+/**
+ * Polls a condition until it is fulfilled or the timeout is reached. In contrast to
+ * {@link org.openqa.selenium.support.ui.WebDriverWait WebDriverWait} the time between two polls is given by an
+ * {@link IPollingStrategy}: either the condition's own (see {@link IPolledCondition}) or the one of the wait. The
+ * number of polls is recorded (see {@link #getPolls()}) and every wait is added to the {@link WaitStatistics}.<br>
+ * The wait ends with the deadline of an enclosing wait, if that is earlier than the timeout, and the waits started by
+ * the condition are limited to the time remaining (see {@link Deadline}).<br>
+ * A wait is used for a single condition by a single thread.
+ */
+public final class AdaptiveWait {
+	/** Innermost running wait per thread. */
+	private static final ThreadLocal<AdaptiveWait> RUNNING = new ThreadLocal<AdaptiveWait>();
+
+	/** WebDriver passed to the condition. */
+	private final WebDriver fDriver;
+	/** How long to wait at maximum (in milliseconds). */
+	private final long fTimeout;
+	/** Strategy used unless the condition provides its own. */
+	private final IPollingStrategy fPollingStrategy;
+	/** Exceptions, which mean the condition is not fulfilled yet. */
+	private final List<Class<? extends Throwable>> ignoredExceptions = new ArrayList<Class<? extends Throwable>>();
+	/** Number of polls of the last {@link #until(ExpectedCondition)}. */
+	private int fPolls;
+	/** Time the last {@link #until(ExpectedCondition)} took (in milliseconds). */
+	private long fElapsed;
+	/** Number of retries due to stale elements in the last {@link #until(ExpectedCondition)}. */
+	private int fStaleRetries;
+	/** Kind of wait as shown by the {@link WaitStatistics}. */
+	private String fKind = "wait";
+	/** What is waited for as shown by the {@link WaitStatistics}. {@code null} for the class of the condition. */
+	private Object fLocator;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param driver
+	 *            WebDriver passed to the condition
+	 * @param timeout
+	 *            how long to wait at maximum (in milliseconds)
+	 * @param pollingStrategy
+	 *            strategy used unless the condition provides its own
+	 */
+	public AdaptiveWait(final WebDriver driver, final long timeout, final IPollingStrategy pollingStrategy) {
+		this.fDriver = driver;
+		this.fTimeout = timeout;
+		this.fPollingStrategy = pollingStrategy;
+	}
+
+	/**
+	 * Constructor using {@link ExponentialBackoff#DEFAULT}.
+	 * 
+	 * @param driver
+	 *            WebDriver passed to the condition
+	 * @param timeout
+	 *            how long to wait at maximum (in milliseconds)
+	 */
+	public AdaptiveWait(final WebDriver driver, final long timeout) {
+		this(driver, timeout, ExponentialBackoff.DEFAULT);
+	}
+
+	/**
+	 * Treat the exceptions thrown by the condition as not fulfilled instead of aborting the wait.
+	 * 
+	 * @param exceptionTypes
+	 *            exceptions to ignore
+	 * @return this wait
+	 */
+	@SafeVarargs
+	public final AdaptiveWait ignoring(final Class<? extends Throwable>... exceptionTypes) {
+		this.ignoredExceptions.addAll(Arrays.asList(exceptionTypes));
+		return this;
+	}
+
+	/**
+	 * Name the wait for the {@link WaitStatistics}.
+	 * 
+	 * @param kind
+	 *            kind of wait, e.g. {@code fetchText}
+	 * @param locator
+	 *            what is waited for, e.g. the {@link org.openqa.selenium.By By}
+	 * @return this wait
+	 */
+	public AdaptiveWait describedAs(final String kind, final Object locator) {
+		this.fKind = kind;
+		this.fLocator = locator;
+		return this;
+	}
+
+	/**
+	 * Poll the condition until it returns neither {@code null} nor {@link Boolean#FALSE}. The condition is polled at
+	 * least once, even if the timeout is {@code 0}.
+	 * 
+	 * @param condition
+	 *            condition to wait for
+	 * @param <T>
+	 *            type of the value returned by the condition
+	 * @return the value returned by the condition
+	 * @throws TimeoutException
+	 *             if the condition has not been fulfilled within the timeout
+	 * @throws IllegalStateException
+	 *             if called by a condition polled by the {@link AsyncWait}
+	 */
+	public <T> T until(final ExpectedCondition<T> condition) {
+		AsyncWait.rejectNestedWait(condition);
+		IPollingStrategy strategy = this.fPollingStrategy;
+		if (condition instanceof IPolledCondition) {
+			strategy = ((IPolledCondition<T>) condition).getPollingStrategy();
+		}
+		long start = System.currentTimeMillis();
+		Deadline deadline = Deadline.within(this.fTimeout);
+		Throwable lastException = null;
+		WaitOutcome outcome = WaitOutcome.ERROR;
+		this.fPolls = 0;
+		this.fStaleRetries = 0;
+		AdaptiveWait enclosingWait = RUNNING.get();
+		RUNNING.set(this);
+		Deadline.Scope scope = deadline.enter();
+		try {
+			while (true) {
+				this.fPolls++;
+				try {
+					T value = condition.apply(this.fDriver);
+					if (value != null && !Boolean.FALSE.equals(value)) {
+						outcome = WaitOutcome.SUCCESS;
+						return value;
+					}
+				} catch (RuntimeException e) {
+					if (!isIgnored(e)) {
+						throw e;
+					}
+					if (e instanceof StaleElementReferenceException) {
+						this.fStaleRetries++;
+					}
+					lastException = e;
+				}
+				long remaining = deadline.remaining();
+				if (remaining <= 0) {
+					outcome = WaitOutcome.TIMEOUT;
+					break;
+				}
+				sleep(Math.min(remaining, strategy.getInterval(this.fPolls)));
+			}
+		} finally {
+			scope.close();
+			if (enclosingWait == null) {
+				RUNNING.remove();
+			} else {
+				RUNNING.set(enclosingWait);
+			}
+			this.fElapsed = System.currentTimeMillis() - start;
+			WaitStatistics.INSTANCE.record(this.fKind, this.fLocator == null ? condition.getClass().getName()
+					: this.fLocator, this.fTimeout, this.fElapsed, this.fPolls, this.fStaleRetries, outcome);
+		}
+		throw new TimeoutException(String.format("Timed out after %d ms and %d poll(s) (%s). %s",
+				Long.valueOf(this.fElapsed), Integer.valueOf(this.fPolls), strategy, condition), lastException);
+	}
+
+	/**
+	 * Take note of the condition of the running wait having retried because of a stale element, for the
+	 * {@link WaitStatistics}. To be called by conditions handling {@link StaleElementReferenceException} themselves.
+	 */
+	public static void noteStaleRetry() {
+		AdaptiveWait runningWait = RUNNING.get();
+		if (runningWait != null) {
+			runningWait.fStaleRetries++;
+		}
+	}
+
+	/**
+	 * @return number of polls of the last {@link #until(ExpectedCondition)}
+	 */
+	public int getPolls() {
+		return this.fPolls;
+	}
+
+	/**
+	 * @return time the last {@link #until(ExpectedCondition)} took (in milliseconds)
+	 */
+	public long getElapsed() {
+		return this.fElapsed;
+	}
+
+	/**
+	 * @param e
+	 *            exception thrown by the condition
+	 * @return {@code true} if the exception means the condition is not fulfilled yet
+	 */
+	private boolean isIgnored(final RuntimeException e) {
+		for (Class<? extends Throwable> ignoredException : this.ignoredExceptions) {
+			if (ignoredException.isInstance(e)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param duration
+	 *            how long to sleep (in milliseconds)
+	 */
+	private static void sleep(final long duration) {
+		try {
+			Thread.sleep(duration);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WebDriverException(e);
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package com.ab.selenium.util.wait;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import com.ab.selenium.test.ExecutionContext;
+
+/**
+ * Polls conditions without blocking the caller. Each poll is a task of a shared scheduler, so a wait occupies a
+ * thread only while its condition is evaluated, not while sleeping between two polls. The polls are spaced like those
+ * of {@link AdaptiveWait}, and the wait is limited by the {@link Deadline} of the caller.<br>
+ * The conditions are evaluated on the scheduler's threads, with the {@link ExecutionContext} of the caller attached, so
+ * logging and screenshots resolve against the caller's test.<br>
+ * Conditions must not block: the few polling threads are shared by all waits, so a condition, which waits itself,
+ * would hold one of them for its whole wait. Starting an {@link AdaptiveWait} or a {@link BrowserWait} within a
+ * condition is therefore rejected with an {@link IllegalStateException}, which fails the wait.<br>
+ * The polls of all waits on the same driver are serialised among each other only. The commands of the calling test,
+ * which keeps using the driver, are not serialised with them. WebDriver instances are not thread safe, so the
+ * conditions must be free of side effects: only read the page, never switch frames or windows, navigate or interact
+ * with elements.<br>
+ * An enum is used for implementation in order to make it a thread safe and serializable singleton.
+ */
+public enum AsyncWait {
+	/** The only instance of the wait. */
+	INSTANCE;
+
+	/** Number of threads evaluating conditions. */
+	private static final int POLLING_THREADS = 4;
+	/** Whether the current thread is evaluating a condition. */
+	private static final ThreadLocal<Boolean> POLLING = new ThreadLocal<Boolean>();
+
+	/** Scheduler of the polls. */
+	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(POLLING_THREADS,
+			new ThreadFactory() {
+				/** Number of threads created so far. */
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(final Runnable task) {
+					Thread thread = new Thread(task, "async-wait-" + this.count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	/**
+	 * Start waiting for the condition. A {@link WebDriverException} (including {@link TimeoutException}) thrown by the
+	 * condition means the condition is not fulfilled yet. The condition is evaluated with the execution context of the
+	 * calling thread. It must neither block nor have side effects on the driver, and its polls are not serialised with
+	 * the driver commands of the caller (see the class comment).
+	 * 
+	 * @param driver
+	 *            WebDriver passed to the condition
+	 * @param condition
+	 *            condition to wait for
+	 * @param timeout
+	 *            how long to wait at maximum (in milliseconds)
+	 * @param pollingStrategy
+	 *            strategy used unless the condition provides its own (see {@link IPolledCondition})
+	 * @param <T>
+	 *            type of the value returned by the condition
+	 * @return future completed with the value returned by the condition, or exceptionally with a
+	 *         {@link TimeoutException}, or with an {@link IllegalStateException} if the condition has started a
+	 *         blocking wait. Cancelling the future stops the polls.
+	 */
+	public <T> CompletableFuture<T> until(final WebDriver driver, final ExpectedCondition<T> condition,
+			final long timeout, final IPollingStrategy pollingStrategy) {
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		IPollingStrategy strategy = pollingStrategy;
+		if (condition instanceof IPolledCondition) {
+			strategy = ((IPolledCondition<T>) condition).getPollingStrategy();
+		}
+		this.scheduler.execute(new Poll<T>(driver, condition, Deadline.within(timeout), strategy, future,
+				ExecutionContext.current()));
+		return future;
+	}
+
+	/**
+	 * Reject a blocking wait started by a condition being polled (see the class comment).
+	 * 
+	 * @param wait
+	 *            description of the wait about to start
+	 * @throws IllegalStateException
+	 *             if the current thread is evaluating a condition
+	 */
+	static void rejectNestedWait(final Object wait) {
+		if (POLLING.get() != null) {
+			throw new IllegalStateException("Blocking wait within a condition polled asynchronously: " + wait
+					+ ". Such conditions must only read the page once per poll.");
+		}
+	}
+
+	/**
+	 * One poll of a condition, which schedules the next one unless the wait is finished.
+	 * 
+	 * @param <T>
+	 *            type of the value returned by the condition
+	 */
+	private final class Poll<T> implements Runnable {
+		/** WebDriver passed to the condition. */
+		private final WebDriver driver;
+		/** Condition to wait for. */
+		private final ExpectedCondition<T> condition;
+		/** End of the wait. */
+		private final Deadline deadline;
+		/** Spacing of the polls. */
+		private final IPollingStrategy strategy;
+		/** Result of the wait. */
+		private final CompletableFuture<T> future;
+		/** Execution context of the caller. */
+		private final ExecutionContext context;
+		/** Polls done so far. */
+		private int polls;
+		/** Exception thrown by the last poll. */
+		private RuntimeException lastException;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param driver
+		 *            WebDriver passed to the condition
+		 * @param condition
+		 *            condition to wait for
+		 * @param deadline
+		 *            end of the wait
+		 * @param strategy
+		 *            spacing of the polls
+		 * @param future
+		 *            result of the wait
+		 * @param context
+		 *            execution context of the caller, attached while polling
+		 */
+		Poll(final WebDriver driver, final ExpectedCondition<T> condition, final Deadline deadline,
+				final IPollingStrategy strategy, final CompletableFuture<T> future, final ExecutionContext context) {
+			this.driver = driver;
+			this.condition = condition;
+			this.deadline = deadline;
+			this.strategy = strategy;
+			this.future = future;
+			this.context = context;
+		}
+
+		@Override
+		public void run() {
+			if (this.future.isDone()) {
+				// cancelled
+				return;
+			}
+			this.polls++;
+			ExecutionContext.attach(this.context);
+			POLLING.set(Boolean.TRUE);
+			Deadline.Scope scope = this.deadline.enter();
+			try {
+				T value = evaluate();
+				if (value != null && !Boolean.FALSE.equals(value)) {
+					this.future.complete(value);
+					return;
+				}
+			} catch (WebDriverException e) {
+				this.lastException = e;
+			} catch (RuntimeException | Error e) {
+				this.future.completeExceptionally(e);
+				return;
+			} finally {
+				scope.close();
+				POLLING.remove();
+				ExecutionContext.detach();
+			}
+			long remaining = this.deadline.remaining();
+			if (remaining <= 0) {
+				this.future.completeExceptionally(new TimeoutException(String.format(
+						"Timed out after %d poll(s) (%s). %s", Integer.valueOf(this.polls), this.strategy,
+						this.condition), this.lastException));
+				return;
+			}
+			AsyncWait.this.scheduler.schedule(this,
+					Math.min(remaining, this.strategy.getInterval(this.polls)), TimeUnit.MILLISECONDS);
+		}
+
+		/**
+		 * @return value returned by the condition, evaluated exclusively among the polls on the same driver
+		 */
+		private T evaluate() {
+			if (this.driver == null) {
+				return this.condition.apply(null);
+			}
+			synchronized (this.driver) {
+				return this.condition.apply(this.driver);
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.ab.selenium.util.wait;
+
+import org.openqa.selenium.By;
+
+/**
+ * A {@link By} translated into a locator, which can be evaluated by JavaScript within the browser (see
+ * {@code /javascript/findElement.js}). Only the basic locators are supported, since the others don't reveal how they
+ * search.
+ */
+public final class BrowserLocator {
+	/** Name of the search strategy as understood by the script. */
+	private final String fStrategy;
+	/** What to search for. */
+	private final String fValue;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param strategy
+	 *            name of the search strategy as understood by the script
+	 * @param value
+	 *            what to search for
+	 */
+	private BrowserLocator(final String strategy, final String value) {
+		this.fStrategy = strategy;
+		this.fValue = value;
+	}
+
+	/**
+	 * Translate the finder.
+	 * 
+	 * @param finder
+	 *            how to find the element
+	 * @return the locator or {@code null} if the finder cannot be evaluated within the browser
+	 */
+	public static BrowserLocator of(final By finder) {
+		String strategy;
+		if (finder instanceof By.ById) {
+			strategy = "id";
+		} else if (finder instanceof By.ByName) {
+			strategy = "name";
+		} else if (finder instanceof By.ByClassName) {
+			strategy = "className";
+		} else if (finder instanceof By.ByTagName) {
+			strategy = "tagName";
+		} else if (finder instanceof By.ByCssSelector) {
+			strategy = "css";
+		} else if (finder instanceof By.ByXPath) {
+			strategy = "xpath";
+		} else if (finder instanceof By.ByLinkText) {
+			strategy = "linkText";
+		} else if (finder instanceof By.ByPartialLinkText) {
+			strategy = "partialLinkText";
+		} else {
+			return null;
+		}
+		// the basic finders describe themselves as "By.<strategy>: <value>"
+		String description = finder.toString();
+		int separator = description.indexOf(": ");
+		if (separator < 0) {
+			return null;
+		}
+		return new BrowserLocator(strategy, description.substring(separator + 2));
+	}
+
+	/**
+	 * @return name of the search strategy as understood by the script
+	 */
+	public String getStrategy() {
+		return this.fStrategy;
+	}
+
+	/**
+	 * @return what to search for
+	 */
+	public String getValue() {
+		return this.fValue;
+	}
+}
@@ -0,0 +1,324 @@
+package com.ab.selenium.util.wait;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import com.ab.selenium.test.Logger;
+import com.ab.selenium.util.JavaScriptUtil;
+
+/**
+ * Waits for elements within the browser. The condition is sent to the browser once (via
+ * {@link JavascriptExecutor#executeAsyncScript(String, Object...)}), where a MutationObserver re-evaluates it at most
+ * once per animation frame whenever the DOM changes (by a timer, should the browser not render frames for a hidden
+ * window). The wait finishes as soon as the element appears instead of at the next poll, and costs a single command
+ * instead of one per poll.<br>
+ * Browsers without MutationObserver poll within the browser. Should the script not be usable at all (finder not
+ * supported by {@link BrowserLocator}, no JavaScript, page unloaded during the wait), the wait falls back to polling the
+ * driver via {@link AdaptiveWait}.<br>
+ * Every wait is added to the {@link WaitStatistics}; a wait within the browser counts as a single poll. The waits
+ * block the calling thread and are rejected within the conditions polled by the {@link AsyncWait}.
+ */
+public final class BrowserWait {
+	/** Script finding an element. Shared by all browser side scripts. */
+	static final String FIND_ELEMENT_JS = JavaScriptUtil.loadScript("/javascript/findElement.js");
+	/** Script waiting for elements, a single one or several at once. */
+	private static final String WAIT_FOR_ELEMENTS_JS = FIND_ELEMENT_JS
+			+ JavaScriptUtil.loadScript("/javascript/waitForElements.js");
+	/** Time given to the script on top of the timeout to report back. In milliseconds. */
+	static final long SCRIPT_TIMEOUT_MARGIN = 2000L;
+	/** Script timeout last set per driver. In milliseconds. */
+	private static final Map<WebDriver, Long> SCRIPT_TIMEOUTS = new WeakHashMap<WebDriver, Long>();
+
+	/**
+	 * Private constructor. Not used, since all methods are static.
+	 */
+	private BrowserWait() {
+	}
+
+	/**
+	 * Wait for the element to be present.
+	 * 
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @param finder
+	 *            how to find the element
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds)
+	 * @return the element
+	 * @throws TimeoutException
+	 *             if the element has not appeared within the timeout
+	 */
+	public static WebElement waitForElement(final WebDriver driver, final By finder, final long timeout) {
+		return waitFor(driver, "waitForElement", true, timeout, new String[] { null }, finder).get(0);
+	}
+
+	/**
+	 * Wait for the element to be present and have the expected visible text (leading and trailing white space
+	 * ignored).
+	 * 
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @param finder
+	 *            how to find the element
+	 * @param expectedText
+	 *            text the element has to have
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds)
+	 * @return the element
+	 * @throws TimeoutException
+	 *             if the element with the text has not appeared within the timeout
+	 */
+	public static WebElement waitForText(final WebDriver driver, final By finder, final String expectedText,
+			final long timeout) {
+		return waitFor(driver, "waitForText", true, timeout, new String[] { expectedText }, finder).get(0);
+	}
+
+	/**
+	 * Wait for all elements to be present. All finders are evaluated by a single script, instead of one wait per
+	 * finder.
+	 * 
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds)
+	 * @param finders
+	 *            how to find the elements
+	 * @return the elements in the order of the finders
+	 * @throws TimeoutException
+	 *             if not all elements have appeared within the timeout
+	 */
+	public static List<WebElement> waitForAllElements(final WebDriver driver, final long timeout,
+			final By... finders) {
+		return waitFor(driver, "waitForElements", true, timeout, new String[finders.length], finders);
+	}
+
+	/**
+	 * Wait for any of the elements to be present. All finders are evaluated by a single script.
+	 * 
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds)
+	 * @param finders
+	 *            how to find the elements
+	 * @return the elements in the order of the finders, {@code null} for the elements not present
+	 * @throws TimeoutException
+	 *             if none of the elements has appeared within the timeout
+	 */
+	public static List<WebElement> waitForAnyElement(final WebDriver driver, final long timeout,
+			final By... finders) {
+		return waitFor(driver, "waitForAnyElement", false, timeout, new String[finders.length], finders);
+	}
+
+	/**
+	 * Wait for the elements within the browser, falling back to polling. A single element is waited for as the case of
+	 * a single finder.
+	 * 
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @param kind
+	 *            kind of wait, for the {@link WaitStatistics}
+	 * @param waitForAll
+	 *            {@code true} to wait for all elements, {@code false} for any of them
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds)
+	 * @param expectedTexts
+	 *            text each element has to have, {@code null} for any text
+	 * @param finders
+	 *            how to find the elements
+	 * @return the elements in the order of the finders, {@code null} for the elements not present
+	 * @throws TimeoutException
+	 *             if the elements have not appeared within the timeout
+	 */
+	private static List<WebElement> waitFor(final WebDriver driver, final String kind, final boolean waitForAll,
+			final long timeout, final String[] expectedTexts, final By... finders) {
+		// the script blocks the calling thread for the whole wait
+		AsyncWait.rejectNestedWait(kind + " " + locatorOf(finders));
+		long start = System.currentTimeMillis();
+		Deadline deadline = Deadline.within(timeout);
+		List<List<String>> locators = new ArrayList<List<String>>();
+		for (int i = 0; i < finders.length; i++) {
+			BrowserLocator locator = BrowserLocator.of(finders[i]);
+			if (locator == null) {
+				locators = null;
+				break;
+			}
+			List<String> browserLocator = new ArrayList<String>(Arrays.asList(locator.getStrategy(),
+					locator.getValue()));
+			if (expectedTexts[i] != null) {
+				browserLocator.add(expectedTexts[i]);
+			}
+			locators.add(browserLocator);
+		}
+		if (locators != null && driver instanceof JavascriptExecutor) {
+			// limited by the deadline of an enclosing wait
+			long budget = deadline.remaining();
+			Object result;
+			try {
+				ensureScriptTimeout(driver, budget + SCRIPT_TIMEOUT_MARGIN);
+				result = ((JavascriptExecutor) driver).executeAsyncScript(WAIT_FOR_ELEMENTS_JS, locators,
+						Boolean.valueOf(waitForAll), Long.valueOf(budget));
+			} catch (WebDriverException e) {
+				Logger.logStepResult("Waiting within the browser has failed, polling instead: " + e.getMessage(),
+						false);
+				result = e;
+			}
+			if (result instanceof List) {
+				List<WebElement> elements = new ArrayList<WebElement>();
+				for (Object element : (List<?>) result) {
+					elements.add((WebElement) element);
+				}
+				record(kind, locatorOf(finders), start, timeout, WaitOutcome.SUCCESS);
+				return elements;
+			}
+			if (result == null) {
+				record(kind, locatorOf(finders), start, timeout, WaitOutcome.TIMEOUT);
+				throw new TimeoutException(describe(waitForAll, timeout, expectedTexts, finders));
+			}
+			if (result instanceof Map) {
+				Logger.logStepResult("Browser cannot evaluate [" + locatorOf(finders) + "]: "
+						+ ((Map<?, ?>) result).get("error"), false);
+			}
+		}
+		return poll(driver, kind, waitForAll, deadline.remaining(), expectedTexts, finders);
+	}
+
+	/**
+	 * Poll the driver until the elements are present. Each poll looks up every finder once.
+	 * 
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @param kind
+	 *            kind of wait, for the {@link WaitStatistics}
+	 * @param waitForAll
+	 *            {@code true} to wait for all elements, {@code false} for any of them
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds)
+	 * @param expectedTexts
+	 *            text each element has to have, {@code null} for any text
+	 * @param finders
+	 *            how to find the elements
+	 * @return the elements in the order of the finders, {@code null} for the elements not present
+	 */
+	private static List<WebElement> poll(final WebDriver driver, final String kind, final boolean waitForAll,
+			final long timeout, final String[] expectedTexts, final By... finders) {
+		ExpectedCondition<List<WebElement>> condition = new ExpectedCondition<List<WebElement>>() {
+			@Override
+			public List<WebElement> apply(final WebDriver innerDriver) {
+				List<WebElement> elements = new ArrayList<WebElement>();
+				boolean found = false;
+				for (int i = 0; i < finders.length; i++) {
+					List<WebElement> candidates = innerDriver.findElements(finders[i]);
+					WebElement element = candidates.isEmpty() ? null : candidates.get(0);
+					if (element != null && expectedTexts[i] != null
+							&& !expectedTexts[i].equals(element.getText().trim())) {
+						element = null;
+					}
+					if (element == null && waitForAll) {
+						return null;
+					}
+					found |= element != null;
+					elements.add(element);
+				}
+				return found || finders.length == 0 ? elements : null;
+			}
+
+			@Override
+			public String toString() {
+				return describe(waitForAll, timeout, expectedTexts, finders);
+			}
+		};
+		return new AdaptiveWait(driver, timeout).ignoring(WebDriverException.class)
+				.describedAs(kind, locatorOf(finders)).until(condition);
+	}
+
+	/**
+	 * @param finders
+	 *            how to find the elements
+	 * @return the finder of a single element or the list of finders, for the {@link WaitStatistics} and messages
+	 */
+	private static Object locatorOf(final By... finders) {
+		return finders.length == 1 ? finders[0] : Arrays.toString(finders);
+	}
+
+	/**
+	 * Add a wait within the browser to the {@link WaitStatistics}.
+	 * 
+	 * @param kind
+	 *            kind of wait
+	 * @param locator
+	 *            what has been waited for
+	 * @param start
+	 *            start of the wait (as of {@link System#currentTimeMillis()})
+	 * @param timeout
+	 *            timeout of the wait (in milliseconds)
+	 * @param outcome
+	 *            how the wait has ended
+	 */
+	private static void record(final String kind, final Object locator, final long start, final long timeout,
+			final WaitOutcome outcome) {
+		WaitStatistics.INSTANCE.record(kind, locator, timeout, System.currentTimeMillis() - start, 1, 0, outcome);
+	}
+
+	/**
+	 * Make sure the driver lets the script run long enough. The scripts finish by their own timeout, so a longer
+	 * script timeout does no harm, and the timeout is only set if it has to be raised. That saves a command on most
+	 * waits.
+	 * 
+	 * @param driver
+	 *            WebDriver to run the script
+	 * @param scriptTimeout
+	 *            time the script needs at maximum (in milliseconds)
+	 */
+	private static void ensureScriptTimeout(final WebDriver driver, final long scriptTimeout) {
+		synchronized (SCRIPT_TIMEOUTS) {
+			Long current = SCRIPT_TIMEOUTS.get(driver);
+			if (current != null && current.longValue() >= scriptTimeout) {
+				return;
+			}
+		}
+		driver.manage().timeouts().setScriptTimeout(scriptTimeout, TimeUnit.MILLISECONDS);
+		synchronized (SCRIPT_TIMEOUTS) {
+			SCRIPT_TIMEOUTS.put(driver, Long.valueOf(scriptTimeout));
+		}
+	}
+
+	/**
+	 * Describe the wait for messages.
+	 * 
+	 * @param waitForAll
+	 *            {@code true} to wait for all elements, {@code false} for any of them
+	 * @param timeout
+	 *            how much to wait till give up (in milliseconds)
+	 * @param expectedTexts
+	 *            text each element has to have, {@code null} for any text
+	 * @param finders
+	 *            how to find the elements
+	 * @return description
+	 */
+	private static String describe(final boolean waitForAll, final long timeout, final String[] expectedTexts,
+			final By... finders) {
+		if (finders.length != 1) {
+			return String.format("Waiting for %s of the WebElements using %s limited to [%d]ms.", waitForAll ? "all"
+					: "any", Arrays.toString(finders), Long.valueOf(timeout));
+		}
+		if (expectedTexts[0] == null) {
+			return String.format("Waiting for WebElement using [%s] limited to [%d]ms.", finders[0],
+					Long.valueOf(timeout));
+		}
+		return String.format("Waiting for WebElement using [%s] to have [%s] as its text limited to [%d]ms.",
+				finders[0], expectedTexts[0], Long.valueOf(timeout));
+	}
+}
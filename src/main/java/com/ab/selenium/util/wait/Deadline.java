@@ -0,0 +1,127 @@
+package com.ab.selenium.util.wait;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which a wait has to be finished. The deadline of the running wait is kept per thread (see
+ * {@link #enter()}), and every wait started within it, e.g. by the condition being polled, is limited to the time
+ * remaining (see {@link #within(long)}). Nested waits therefore never exceed the timeout of the outermost wait, instead
+ * of multiplying their timeouts.<br>
+ * Deadlines are immutable and based on {@link System#nanoTime()}, so they are not affected by changes of the clock.
+ */
+public final class Deadline {
+	/** Deadline of the running wait per thread. */
+	private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+
+	/** End of the deadline as of {@link System#nanoTime()}. */
+	private final long fEnd;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param end
+	 *            end of the deadline as of {@link System#nanoTime()}
+	 */
+	private Deadline(final long end) {
+		this.fEnd = end;
+	}
+
+	/**
+	 * @param timeout
+	 *            time from now (in milliseconds)
+	 * @return deadline ending after the timeout, regardless of the running wait
+	 */
+	public static Deadline in(final long timeout) {
+		return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, timeout)));
+	}
+
+	/**
+	 * @param timeout
+	 *            time from now (in milliseconds)
+	 * @return deadline ending after the timeout or with the deadline of the running wait, whichever is earlier
+	 */
+	public static Deadline within(final long timeout) {
+		Deadline deadline = in(timeout);
+		Deadline current = CURRENT.get();
+		if (current != null && current.fEnd - deadline.fEnd < 0) {
+			return current;
+		}
+		return deadline;
+	}
+
+	/**
+	 * @return deadline of the running wait or {@code null} if there is none
+	 */
+	public static Deadline current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * @return time remaining (in milliseconds), {@code 0} if the deadline has passed
+	 */
+	public long remaining() {
+		return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(this.fEnd - System.nanoTime()));
+	}
+
+	/**
+	 * @return {@code true} if the deadline has passed
+	 */
+	public boolean isExpired() {
+		return this.fEnd - System.nanoTime() <= 0;
+	}
+
+	/**
+	 * Make this the deadline of the running wait on the current thread until the returned scope is closed:
+	 * 
+	 * <pre>
+	 * Deadline.Scope scope = deadline.enter();
+	 * try {
+	 * 	// waits here end by the deadline at the latest
+	 * } finally {
+	 * 	scope.close();
+	 * }
+	 * </pre>
+	 * 
+	 * @return scope restoring the previous deadline when closed
+	 */
+	public Scope enter() {
+		Scope scope = new Scope(CURRENT.get());
+		CURRENT.set(this);
+		return scope;
+	}
+
+	@Override
+	public String toString() {
+		return "Deadline in " + remaining() + " ms";
+	}
+
+	/**
+	 * Time during which a deadline is the one of the running wait.
+	 */
+	public static final class Scope implements AutoCloseable {
+		/** Deadline to restore. {@code null} if there was none. */
+		private final Deadline fPrevious;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param previous
+		 *            deadline to restore, {@code null} if there was none
+		 */
+		Scope(final Deadline previous) {
+			this.fPrevious = previous;
+		}
+
+		/**
+		 * Restore the previous deadline.
+		 */
+		@Override
+		public void close() {
+			if (this.fPrevious == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(this.fPrevious);
+			}
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.ab.selenium.util.wait;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Polls quickly first and backs off exponentially up to a maximal interval. Conditions, which are fulfilled shortly,
+ * are noticed within milliseconds, while long waits don't flood the hub with commands.<br>
+ * Each interval is shortened by a random part (jitter), so that sessions started at the same time don't poll the grid
+ * in lockstep.
+ */
+public final class ExponentialBackoff implements IPollingStrategy {
+	/** Strategy used, if the condition doesn't provide its own: 50, 100, 200, 400, 800 and then every 1000 ms. */
+	public static final ExponentialBackoff DEFAULT = new ExponentialBackoff(50L, 2.0, 1000L, 0.2);
+
+	/** Interval after the first poll. In milliseconds. */
+	private final long fInitialInterval;
+	/** Factor each following interval is multiplied with. */
+	private final double fFactor;
+	/** Longest interval. In milliseconds. */
+	private final long fMaximalInterval;
+	/** Part of the interval, which may randomly be left out (0 - 1). */
+	private final double fJitter;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param initialInterval
+	 *            interval after the first poll (in milliseconds)
+	 * @param factor
+	 *            factor each following interval is multiplied with. {@code 1} polls in fixed intervals.
+	 * @param maximalInterval
+	 *            longest interval (in milliseconds)
+	 * @param jitter
+	 *            part of the interval, which may randomly be left out (0 - 1). {@code 0} disables the jitter.
+	 */
+	public ExponentialBackoff(final long initialInterval, final double factor, final long maximalInterval,
+			final double jitter) {
+		if (initialInterval <= 0 || factor < 1 || maximalInterval < initialInterval || jitter < 0 || jitter >= 1) {
+			throw new IllegalArgumentException(String.format(
+					"Invalid backoff: initial %d ms, factor %s, maximum %d ms, jitter %s.",
+					Long.valueOf(initialInterval), Double.valueOf(factor), Long.valueOf(maximalInterval),
+					Double.valueOf(jitter)));
+		}
+		this.fInitialInterval = initialInterval;
+		this.fFactor = factor;
+		this.fMaximalInterval = maximalInterval;
+		this.fJitter = jitter;
+	}
+
+	/**
+	 * Poll in fixed intervals without jitter.
+	 * 
+	 * @param interval
+	 *            time between two polls (in milliseconds)
+	 * @return the strategy
+	 */
+	public static ExponentialBackoff fixed(final long interval) {
+		return new ExponentialBackoff(interval, 1, interval, 0);
+	}
+
+	@Override
+	public long getInterval(final int polls) {
+		double interval = this.fInitialInterval * Math.pow(this.fFactor, Math.max(0, polls - 1));
+		interval = Math.min(interval, this.fMaximalInterval);
+		if (this.fJitter > 0) {
+			interval -= interval * this.fJitter * ThreadLocalRandom.current().nextDouble();
+		}
+		return Math.max(1L, Math.round(interval));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("backoff %d-%d ms x%s", Long.valueOf(this.fInitialInterval),
+				Long.valueOf(this.fMaximalInterval), Double.valueOf(this.fFactor));
+	}
+}
@@ -0,0 +1,19 @@
+package com.ab.selenium.util.wait;
+
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+/**
+ * Condition, which knows best how often it should be polled. Used by {@link AdaptiveWait} instead of the default
+ * strategy, e.g. to poll an expensive condition less often or a condition expected to be fulfilled within milliseconds
+ * more often.
+ * 
+ * @param <T>
+ *            type of the value returned once the condition is fulfilled
+ */
+public interface IPolledCondition<T> extends ExpectedCondition<T> {
+	/**
+	 * @return strategy to poll this condition with
+	 */
+	IPollingStrategy getPollingStrategy();
+
+}
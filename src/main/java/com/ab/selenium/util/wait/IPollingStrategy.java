@@ -0,0 +1,13 @@
+package com.ab.selenium.util.wait;
+
+/**
+ * Decides how long to sleep between two polls of a condition (see {@link AdaptiveWait}).
+ */
+public interface IPollingStrategy {
+	/**
+	 * @param polls
+	 *            number of polls done so far (at least 1)
+	 * @return time to sleep before the next poll (in milliseconds)
+	 */
+	long getInterval(int polls);
+}
@@ -0,0 +1,158 @@
+package com.ab.selenium.util.wait;
+
+import java.util.Map;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import com.ab.selenium.test.Logger;
+import com.ab.selenium.util.JavaScriptUtil;
+
+/**
+ * Waits until the page has settled instead of waiting a fixed time. The page is considered ready, when
+ * <li>the document has been loaded ({@code document.readyState} is {@code complete}),</li>
+ * <li>no XMLHttpRequest or fetch request is in flight,</li>
+ * <li>no timeout of up to {@link #withMaxTimerDelay(long) the given delay} is pending, except those re-armed from
+ * their own callback (polling, tickers),</li>
+ * <li>no animation frame is pending (only if {@link #includingAnimationFrames() included}) and</li>
+ * <li>none of the above has happened for the {@link #withQuietPeriod(long) quiet period}.</li><br>
+ * The work of the page is counted by hooks, which are installed into the document on the first check (see
+ * {@code /javascript/pageReadiness.js}). Requests started before that are only known from the resource timings of the
+ * browser.<br>
+ * Instances are immutable, the {@code with...} methods return a modified copy.
+ */
+public final class PageReadinessDetector {
+	/** Detector with a quiet period of 300 ms, counting timeouts of up to 1000 ms but no animation frames. */
+	public static final PageReadinessDetector DEFAULT = new PageReadinessDetector(300L, 1000L, false);
+
+	/** Script reporting the state of the page. */
+	private static final String PAGE_READINESS_JS = JavaScriptUtil.loadScript("/javascript/pageReadiness.js");
+	/** Polling of the state. The quiet period is mostly shorter than a second, so the polls must not back off far. */
+	private static final IPollingStrategy POLLING_STRATEGY = new ExponentialBackoff(50L, 2.0, 250L, 0.2);
+
+	/** How long the page has to be idle. In milliseconds. */
+	private final long fQuietPeriod;
+	/** Longest delay of a timeout to be waited for. In milliseconds. */
+	private final long fMaxTimerDelay;
+	/** Wait for the pending animation frames? */
+	private final boolean fWatchAnimationFrames;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param quietPeriod
+	 *            how long the page has to be idle (in milliseconds)
+	 * @param maxTimerDelay
+	 *            longest delay of a timeout to be waited for (in milliseconds)
+	 * @param watchAnimationFrames
+	 *            wait for the pending animation frames?
+	 */
+	private PageReadinessDetector(final long quietPeriod, final long maxTimerDelay,
+			final boolean watchAnimationFrames) {
+		this.fQuietPeriod = quietPeriod;
+		this.fMaxTimerDelay = maxTimerDelay;
+		this.fWatchAnimationFrames = watchAnimationFrames;
+	}
+
+	/**
+	 * @param quietPeriod
+	 *            how long the page has to be idle (in milliseconds)
+	 * @return copy of this detector with the quiet period
+	 */
+	public PageReadinessDetector withQuietPeriod(final long quietPeriod) {
+		return new PageReadinessDetector(quietPeriod, this.fMaxTimerDelay, this.fWatchAnimationFrames);
+	}
+
+	/**
+	 * Timeouts with longer delays (e.g. session keep alive) are not waited for.
+	 * 
+	 * @param maxTimerDelay
+	 *            longest delay of a timeout to be waited for (in milliseconds)
+	 * @return copy of this detector with the delay
+	 */
+	public PageReadinessDetector withMaxTimerDelay(final long maxTimerDelay) {
+		return new PageReadinessDetector(this.fQuietPeriod, maxTimerDelay, this.fWatchAnimationFrames);
+	}
+
+	/**
+	 * To be used for pages with animations that have to finish before the page can be checked. Pages with continuous
+	 * animations (requesting a frame from every frame) will never be ready then.
+	 * 
+	 * @return copy of this detector waiting for animation frames
+	 */
+	public PageReadinessDetector includingAnimationFrames() {
+		return new PageReadinessDetector(this.fQuietPeriod, this.fMaxTimerDelay, true);
+	}
+
+	/**
+	 * Wait until the page is ready. Drivers without JavaScript are not waited for.
+	 * 
+	 * @param driver
+	 *            WebDriver displaying the page
+	 * @param timeout
+	 *            how long to wait at maximum (in milliseconds)
+	 * @throws TimeoutException
+	 *             if the page has not settled within the timeout
+	 */
+	public void waitUntilReady(final WebDriver driver, final long timeout) {
+		if (!(driver instanceof JavascriptExecutor)) {
+			Logger.logStepResult("Cannot detect readiness of the page without JavaScript.", false);
+			return;
+		}
+		IPolledCondition<Boolean> settled = new IPolledCondition<Boolean>() {
+			/** State at the last check, for the timeout message. */
+			private Object lastState;
+
+			@Override
+			public Boolean apply(final WebDriver innerDriver) {
+				this.lastState = ((JavascriptExecutor) innerDriver).executeScript(PAGE_READINESS_JS,
+						Long.valueOf(PageReadinessDetector.this.fMaxTimerDelay));
+				return Boolean.valueOf(this.lastState instanceof Map && isReady((Map<?, ?>) this.lastState));
+			}
+
+			@Override
+			public IPollingStrategy getPollingStrategy() {
+				return POLLING_STRATEGY;
+			}
+
+			@Override
+			public String toString() {
+				return "Waiting for the page to settle (" + PageReadinessDetector.this + "). Last state: "
+						+ this.lastState;
+			}
+		};
+		new AdaptiveWait(driver, timeout).ignoring(WebDriverException.class).describedAs("waitForPageReady", this)
+				.until(settled);
+	}
+
+	/**
+	 * @param state
+	 *            state reported by the script
+	 * @return {@code true} if the page is ready
+	 */
+	private boolean isReady(final Map<?, ?> state) {
+		return "complete".equals(state.get("readyState")) && count(state, "requests") <= 0
+				&& count(state, "timers") <= 0 && (!this.fWatchAnimationFrames || count(state, "frames") <= 0)
+				&& count(state, "idle") >= this.fQuietPeriod;
+	}
+
+	/**
+	 * @param state
+	 *            state reported by the script
+	 * @param key
+	 *            name of the counter
+	 * @return value of the counter
+	 */
+	private static long count(final Map<?, ?> state, final String key) {
+		Object value = state.get(key);
+		return value instanceof Number ? ((Number) value).longValue() : 0L;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("quiet for %d ms, timeouts up to %d ms%s", Long.valueOf(this.fQuietPeriod),
+				Long.valueOf(this.fMaxTimerDelay), this.fWatchAnimationFrames ? ", animation frames" : "");
+	}
+}
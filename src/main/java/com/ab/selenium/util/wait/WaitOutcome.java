@@ -0,0 +1,31 @@
+package com.ab.selenium.util.wait;
+
+/**
+ * How a wait has ended, as recorded by the {@link WaitStatistics}.
+ */
+public enum WaitOutcome {
+	/** The condition has been fulfilled. */
+	SUCCESS("success"),
+	/** The timeout has been reached. */
+	TIMEOUT("timeout"),
+	/** The condition has thrown an exception, which is not ignored by the wait. */
+	ERROR("error");
+
+	/** Name used in the summary. */
+	private final String fDescription;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param description
+	 *            name used in the summary
+	 */
+	private WaitOutcome(final String description) {
+		this.fDescription = description;
+	}
+
+	@Override
+	public String toString() {
+		return this.fDescription;
+	}
+}
@@ -0,0 +1,208 @@
+package com.ab.selenium.util.wait;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ab.selenium.test.Logger;
+import com.ab.selenium.util.StatisticsUtils;
+
+/**
+ * Collects how long the waits actually take compared with their timeouts for the whole run: elapsed time, number of
+ * polls, outcome and the retries due to stale elements, per kind of wait, locator and calling class (usually the page
+ * class). At the end of the suite a summary is logged (see {@link #report()}), with the waits taking most of the time
+ * first. The headroom shows how much of its timeout the slowest successful wait has left, i.e. how far the timeout
+ * could be cut.<br>
+ * The calling class is the first class on the stack outside of the wait implementation, which includes the lazily bound
+ * page fields (see {@link com.ab.selenium.pages.PageElementBinder PageElementBinder}) and their proxies.<br>
+ * An enum is used for implementation in order to make it a thread safe and serializable singleton.
+ */
+public enum WaitStatistics {
+	/** The only instance of the statistics. */
+	INSTANCE;
+
+	/** Percentiles shown in the summary. */
+	private static final int[] PERCENTILES = { 50, 90, 99 };
+	/** Prefixes of the classes implementing the waits, which are skipped to find the calling class. */
+	private static final String[] WAIT_IMPLEMENTATION = { "com.ab.selenium.util.wait.",
+			"com.ab.selenium.pages.AbstractPage", "com.ab.selenium.pages.PageElementBinder",
+			"com.ab.selenium.util.PageFactory", "com.ab.selenium.util.RenewableWebElement",
+			"com.ab.selenium.util.ExpectedConditionFactory", "com.sun.proxy.", "jdk.proxy", "java.", "javax.", "sun.",
+			"org.openqa." };
+
+	/** Recorded waits by kind, locator and calling class. */
+	private final Map<String, WaitHistogram> histograms = new HashMap<String, WaitHistogram>();
+
+	/**
+	 * Record a finished wait.
+	 *
+	 * @param kind
+	 *            kind of wait, e.g. {@code waitForElement}
+	 * @param locator
+	 *            what has been waited for, e.g. the {@link org.openqa.selenium.By By}
+	 * @param timeout
+	 *            timeout of the wait (in milliseconds)
+	 * @param elapsed
+	 *            time the wait took (in milliseconds)
+	 * @param polls
+	 *            number of times the condition has been checked
+	 * @param staleRetries
+	 *            number of retries due to stale elements
+	 * @param outcome
+	 *            how the wait has ended
+	 */
+	public void record(final String kind, final Object locator, final long timeout, final long elapsed,
+			final int polls, final int staleRetries, final WaitOutcome outcome) {
+		String key = kind + " | " + locator + " | " + callingClass();
+		synchronized (this.histograms) {
+			WaitHistogram histogram = this.histograms.get(key);
+			if (histogram == null) {
+				histogram = new WaitHistogram(key);
+				this.histograms.put(key, histogram);
+			}
+			histogram.add(timeout, elapsed, polls, staleRetries, outcome);
+		}
+	}
+
+	/**
+	 * Log the summary of all recorded waits and start over. To be called at the end of the suite.
+	 */
+	public void report() {
+		List<WaitHistogram> recorded;
+		synchronized (this.histograms) {
+			if (this.histograms.isEmpty()) {
+				return;
+			}
+			recorded = new ArrayList<WaitHistogram>(this.histograms.values());
+			this.histograms.clear();
+		}
+		Collections.sort(recorded, new Comparator<WaitHistogram>() {
+			@Override
+			public int compare(final WaitHistogram first, final WaitHistogram second) {
+				return Long.compare(second.totalElapsed, first.totalElapsed);
+			}
+		});
+		Logger.logStepResult("Wait durations in ms (kind | locator | caller), longest total first:", false);
+		for (WaitHistogram histogram : recorded) {
+			Logger.logStepResult(histogram.toString(), false);
+		}
+	}
+
+	/**
+	 * @return name of the first class on the stack outside of the wait implementation
+	 */
+	private static String callingClass() {
+		for (StackTraceElement frame : new Throwable().getStackTrace()) {
+			String className = frame.getClassName();
+			if (!isWaitImplementation(className)) {
+				int innerClass = className.indexOf('$');
+				return innerClass < 0 ? className : className.substring(0, innerClass);
+			}
+		}
+		return "unknown";
+	}
+
+	/**
+	 * @param className
+	 *            name of a class on the stack
+	 * @return {@code true} if the class implements the waits
+	 */
+	private static boolean isWaitImplementation(final String className) {
+		for (String prefix : WAIT_IMPLEMENTATION) {
+			if (className.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Waits recorded for one kind of wait, locator and calling class.
+	 */
+	private static final class WaitHistogram {
+		/** Kind, locator and calling class. */
+		private final String key;
+		/** Elapsed times (in milliseconds). */
+		private final List<Long> elapsedTimes = new ArrayList<Long>();
+		/** Numbers of polls. */
+		private final List<Long> pollCounts = new ArrayList<Long>();
+		/** Number of waits by outcome. */
+		private final Map<WaitOutcome, Integer> outcomes = new EnumMap<WaitOutcome, Integer>(WaitOutcome.class);
+		/** Sum of the elapsed times (in milliseconds). */
+		private long totalElapsed;
+		/** Sum of the retries due to stale elements. */
+		private long staleRetries;
+		/** Longest timeout (in milliseconds). */
+		private long maxTimeout;
+		/** Longest elapsed time of a successful wait (in milliseconds). */
+		private long maxSuccessElapsed;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param key
+		 *            kind, locator and calling class
+		 */
+		WaitHistogram(final String key) {
+			this.key = key;
+		}
+
+		/**
+		 * Add a wait.
+		 *
+		 * @param timeout
+		 *            timeout of the wait (in milliseconds)
+		 * @param elapsed
+		 *            time the wait took (in milliseconds)
+		 * @param polls
+		 *            number of times the condition has been checked
+		 * @param stale
+		 *            number of retries due to stale elements
+		 * @param outcome
+		 *            how the wait has ended
+		 */
+		void add(final long timeout, final long elapsed, final int polls, final int stale,
+				final WaitOutcome outcome) {
+			this.elapsedTimes.add(Long.valueOf(elapsed));
+			this.pollCounts.add(Long.valueOf(polls));
+			Integer count = this.outcomes.get(outcome);
+			this.outcomes.put(outcome, Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+			this.totalElapsed += elapsed;
+			this.staleRetries += stale;
+			this.maxTimeout = Math.max(this.maxTimeout, timeout);
+			if (outcome == WaitOutcome.SUCCESS) {
+				this.maxSuccessElapsed = Math.max(this.maxSuccessElapsed, elapsed);
+			}
+		}
+
+		@Override
+		public String toString() {
+			List<Long> elapsed = new ArrayList<Long>(this.elapsedTimes);
+			Collections.sort(elapsed);
+			List<Long> polls = new ArrayList<Long>(this.pollCounts);
+			Collections.sort(polls);
+			StringBuilder line = new StringBuilder();
+			line.append(this.key).append(" | n=").append(elapsed.size()).append(" total=").append(this.totalElapsed);
+			for (int percentile : PERCENTILES) {
+				line.append(" p").append(percentile).append('=')
+						.append(StatisticsUtils.percentile(elapsed, percentile));
+			}
+			line.append(" max=").append(elapsed.get(elapsed.size() - 1));
+			line.append(" | polls p50=").append(StatisticsUtils.percentile(polls, 50)).append(" max=")
+					.append(polls.get(polls.size() - 1));
+			for (Map.Entry<WaitOutcome, Integer> outcome : this.outcomes.entrySet()) {
+				line.append(' ').append(outcome.getKey()).append('=').append(outcome.getValue());
+			}
+			line.append(" stale retries=").append(this.staleRetries);
+			if (this.outcomes.containsKey(WaitOutcome.SUCCESS)) {
+				line.append(" | headroom=").append(this.maxTimeout - this.maxSuccessElapsed).append(" of ")
+						.append(this.maxTimeout);
+			}
+			return line.toString();
+		}
+	}
+}
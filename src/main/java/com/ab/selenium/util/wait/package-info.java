@@ -0,0 +1,5 @@
+/**
+ * This package contains the wait engine, which evaluates the conditions within the browser instead of polling the
+ * driver.
+ */
+package com.ab.selenium.util.wait;
@@ -0,0 +1,134 @@
+package com.ab.selenium.pages;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.CacheLookup;
+import org.openqa.selenium.support.FindBy;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Lazy binding of page fields against a stub driver counting its lookups.
+ */
+public class PageElementBinderTest {
+	/** Number of lookups done by the stub driver. */
+	private int lookups;
+	/** Should the next call of the element fail as stale? */
+	private boolean stale;
+	/** Number of lookups still finding no elements. */
+	private int empty;
+
+	@BeforeMethod
+	public void resetStub() {
+		this.lookups = 0;
+		this.stale = false;
+		this.empty = 0;
+	}
+
+	@Test
+	public void testElementIsLookedUpOnFirstUseOnlyAndAfterStaleness() {
+		StubPage page = new StubPage();
+		PageElementBinder.INSTANCE.bind(page, stubDriver());
+		Assert.assertEquals(this.lookups, 0);
+
+		Assert.assertEquals(page.button.getText(), "text of By.id: submit");
+		Assert.assertEquals(page.button.getText(), "text of By.id: submit");
+		Assert.assertEquals(this.lookups, 1);
+
+		this.stale = true;
+		Assert.assertEquals(page.button.getText(), "text of By.id: submit");
+		Assert.assertEquals(this.lookups, 2);
+
+		Assert.assertEquals(page.rows.size(), 1);
+		Assert.assertEquals(this.lookups, 3);
+	}
+
+	@Test
+	public void testObjectMethodsDoNotLookUp() {
+		StubPage page = new StubPage();
+		PageElementBinder.INSTANCE.bind(page, stubDriver());
+
+		Assert.assertEquals(page.button.toString(), "Proxy element for: By.id: submit");
+		Assert.assertEquals(page.button.hashCode(), System.identityHashCode(page.button));
+		Assert.assertTrue(page.button.equals(page.button));
+		Assert.assertFalse(page.button.equals(page.rows));
+		Assert.assertEquals(this.lookups, 0);
+	}
+
+	@Test
+	public void testListIsWaitedForAndNotCachedWhileEmpty() {
+		StubPage page = new StubPage();
+		PageElementBinder.INSTANCE.bind(page, stubDriver());
+		this.empty = 2;
+
+		Assert.assertEquals(page.cachedRows.size(), 1);
+		Assert.assertEquals(this.lookups, 3);
+		Assert.assertEquals(page.cachedRows.size(), 1);
+		Assert.assertEquals(this.lookups, 3);
+	}
+
+	/**
+	 * @return driver finding one element for every finder, none while requested
+	 */
+	private WebDriver stubDriver() {
+		return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { WebDriver.class },
+				new InvocationHandler() {
+					@Override
+					public Object invoke(final Object proxy, final Method method, final Object[] args) {
+						if ("findElements".equals(method.getName())) {
+							PageElementBinderTest.this.lookups++;
+							if (PageElementBinderTest.this.empty > 0) {
+								PageElementBinderTest.this.empty--;
+								return Collections.emptyList();
+							}
+							return Collections.singletonList(stubElement((By) args[0]));
+						}
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+	/**
+	 * @param finder
+	 *            how the element has been found
+	 * @return element answering its text, once stale if requested
+	 */
+	private WebElement stubElement(final By finder) {
+		return (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { WebElement.class },
+				new InvocationHandler() {
+					@Override
+					public Object invoke(final Object proxy, final Method method, final Object[] args) {
+						if (PageElementBinderTest.this.stale) {
+							PageElementBinderTest.this.stale = false;
+							throw new StaleElementReferenceException("stale");
+						}
+						return "text of " + finder;
+					}
+				});
+	}
+
+	/**
+	 * Page with bound fields.
+	 */
+	static class StubPage {
+		/** Single element. */
+		@FindBy(id = "submit")
+		private WebElement button;
+		/** List of elements. */
+		@FindBy(css = "tr")
+		private List<WebElement> rows;
+		/** Cached list of elements. */
+		@FindBy(css = "li")
+		@CacheLookup
+		private List<WebElement> cachedRows;
+	}
+}
@@ -0,0 +1,205 @@
+package com.ab.selenium.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.pagefactory.ByAll;
+import org.openqa.selenium.support.pagefactory.ByChained;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ab.selenium.pages.AbstractPage;
+import com.ab.selenium.pages.IPageBinder;
+import com.ab.selenium.pages.PageElementBinder;
+
+/**
+ * Runs the processor on the fixture pages in {@code /processor/fixture} and checks the generated binders.
+ */
+public class PageBinderProcessorTest {
+	/** Directory of the compiled fixtures and the generated sources. */
+	private File outputDir;
+	/** Messages of the compiler. */
+	private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+	/** Has the compilation succeeded? */
+	private boolean compiled;
+
+	@BeforeClass
+	public void compileFixtures() throws IOException, URISyntaxException {
+		this.outputDir = Files.createTempDirectory("binders").toFile();
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(this.diagnostics, Locale.ENGLISH,
+				StandardCharsets.UTF_8);
+		try {
+			Iterable<? extends JavaFileObject> sources = fileManager.getJavaFileObjects(fixture("LoginPage"),
+					fixture("PrivatePage"), fixture("ClashingPage"));
+			List<String> options = Arrays.asList("-d", this.outputDir.getPath(), "-s", this.outputDir.getPath(),
+					"-classpath", classpath());
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, this.diagnostics, options, null,
+					sources);
+			task.setProcessors(Collections.singletonList(new PageBinderProcessor()));
+			this.compiled = task.call().booleanValue();
+		} finally {
+			fileManager.close();
+		}
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void deleteOutput() {
+		delete(this.outputDir);
+	}
+
+	@Test
+	public void testBinderGeneratedAndCompiled() throws IOException {
+		Assert.assertTrue(this.compiled, this.diagnostics.getDiagnostics().toString());
+		String source = new String(Files.readAllBytes(new File(this.outputDir, "fixture/LoginPage_Binder.java")
+				.toPath()), StandardCharsets.UTF_8);
+
+		Assert.assertTrue(source.contains("public final class LoginPage_Binder implements "
+				+ "com.ab.selenium.pages.IPageBinder<LoginPage>"), source);
+		Assert.assertTrue(source.contains("page.userName = com.ab.selenium.pages.PageElementBinder.element(driver, "
+				+ "USER_NAME);"), source);
+		Assert.assertTrue(source.contains("page.helpLinks = com.ab.selenium.pages.PageElementBinder.elements(driver, "
+				+ "HELP_LINKS, true);"), source);
+		Assert.assertTrue(source.contains("page.remember = com.ab.selenium.pages.PageElementBinder.elements(driver, "
+				+ "REMEMBER, false);"), source);
+		Assert.assertTrue(source.contains("return new LoginPage(parentPage);"), source);
+		Assert.assertFalse(source.contains("title"), source);
+	}
+
+	@Test
+	public void testLocatorsLikeAnnotations() throws ReflectiveOperationException, IOException {
+		Assert.assertTrue(this.compiled, this.diagnostics.getDiagnostics().toString());
+		URLClassLoader loader = new URLClassLoader(new URL[] { this.outputDir.toURI().toURL() }, getClass()
+				.getClassLoader());
+		try {
+			Class<?> binderClass = loader.loadClass("fixture.LoginPage_Binder");
+			Assert.assertTrue(IPageBinder.class.isAssignableFrom(binderClass));
+			Assert.assertEquals(constant(binderClass, "USER_NAME"), By.id("user"));
+			Assert.assertEquals(constant(binderClass, "HELP_LINKS"), By.xpath("//a[@class=\"help\"]"));
+			Assert.assertEquals(constant(binderClass, "SUBMIT").toString(),
+					new ByChained(By.cssSelector("form"), By.tagName("button")).toString());
+			Assert.assertEquals(constant(binderClass, "REMEMBER").toString(),
+					new ByAll(By.name("remember"), By.className("remember")).toString());
+			Assert.assertEquals(constant(binderClass, "PASSWORD").toString(), "by id or name \"password\"");
+		} finally {
+			loader.close();
+		}
+	}
+
+	@Test
+	public void testClashingConstantsNumberedAndCreationLeftToReflection() throws ReflectiveOperationException,
+			IOException {
+		Assert.assertTrue(this.compiled, this.diagnostics.getDiagnostics().toString());
+		URLClassLoader loader = new URLClassLoader(new URL[] { this.outputDir.toURI().toURL() }, getClass()
+				.getClassLoader());
+		try {
+			Class<?> binderClass = loader.loadClass("fixture.ClashingPage_Binder");
+			Assert.assertEquals(constant(binderClass, "USER_NAME"), By.id("user"));
+			Assert.assertEquals(constant(binderClass, "USER_NAME_2"), By.name("user"));
+			Assert.assertNull(((IPageBinder<?>) binderClass.newInstance()).create(null));
+			try {
+				PageElementBinder.INSTANCE.createPage(loader.loadClass("fixture.ClashingPage")
+						.asSubclass(AbstractPage.class), null);
+				Assert.fail("page created without public constructor");
+			} catch (NoSuchMethodException e) {
+				// like without binder
+			}
+		} finally {
+			loader.close();
+		}
+	}
+
+	@Test
+	public void testPrivateFieldLeftToReflection() {
+		Assert.assertTrue(this.compiled, this.diagnostics.getDiagnostics().toString());
+		Assert.assertFalse(new File(this.outputDir, "fixture/PrivatePage_Binder.java").exists());
+		boolean noted = false;
+		for (Diagnostic<? extends JavaFileObject> diagnostic : this.diagnostics.getDiagnostics()) {
+			noted |= diagnostic.getKind() == Diagnostic.Kind.NOTE
+					&& diagnostic.getMessage(Locale.ENGLISH).contains("fixture.PrivatePage")
+					&& diagnostic.getMessage(Locale.ENGLISH).contains("field hidden is private");
+		}
+		Assert.assertTrue(noted, this.diagnostics.getDiagnostics().toString());
+	}
+
+	/**
+	 * @param name
+	 *            simple name of a fixture page
+	 * @return its source file
+	 * @throws URISyntaxException
+	 *             if the fixture is not a file
+	 */
+	private static File fixture(final String name) throws URISyntaxException {
+		return new File(PageBinderProcessorTest.class.getResource("/processor/fixture/" + name + ".java").toURI());
+	}
+
+	/**
+	 * The class path of the test may be hidden in a manifest (surefire), so the locations of the required classes are
+	 * added explicitly.
+	 * 
+	 * @return class path to compile the fixtures with
+	 * @throws URISyntaxException
+	 *             if a location is not a file
+	 */
+	private static String classpath() throws URISyntaxException {
+		List<String> entries = new ArrayList<String>();
+		for (Class<?> required : new Class<?>[] { AbstractPage.class, WebElement.class, FindBy.class }) {
+			entries.add(new File(required.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath());
+		}
+		entries.add(System.getProperty("java.class.path"));
+		StringBuilder classpath = new StringBuilder();
+		for (String entry : entries) {
+			classpath.append(entry).append(File.pathSeparatorChar);
+		}
+		return classpath.toString();
+	}
+
+	/**
+	 * @param binderClass
+	 *            generated binder
+	 * @param name
+	 *            name of a locator constant
+	 * @return its value
+	 * @throws ReflectiveOperationException
+	 *             if there is no such constant
+	 */
+	private static By constant(final Class<?> binderClass, final String name) throws ReflectiveOperationException {
+		return (By) binderClass.getField(name).get(null);
+	}
+
+	/**
+	 * @param file
+	 *            file or directory to delete recursively
+	 */
+	private static void delete(final File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,102 @@
+package com.ab.selenium.test.session;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Routing against stub hubs answering the hub API and the status endpoint.
+ */
+public class GridHubRouterTest {
+	/** Started stub hubs. */
+	private final List<HttpServer> hubs = new ArrayList<HttpServer>();
+
+	@Test
+	public void testLeastLoadedHealthyHubFirst() throws IOException {
+		String busyHub = startHub("/grid/api/hub", "{\"slotCounts\":{\"free\":1,\"total\":5}}");
+		String idleHub = startHub("/grid/api/hub", "{\"slotCounts\":{\"free\":4,\"total\":5}}");
+		String plainHub = startHub("/wd/hub/status", "{\"status\":0}");
+		String deadHub = "http://localhost:" + unusedPort() + "/wd/hub";
+
+		List<String> ranking =
+				GridHubRouter.INSTANCE.rankHubs(Arrays.asList(deadHub, plainHub, busyHub, idleHub));
+
+		Assert.assertEquals(ranking, Arrays.asList(idleHub, busyHub, plainHub, deadHub));
+	}
+
+	@Test
+	public void testStartedSessionsSpreadOverHubs() throws IOException {
+		String firstHub = startHub("/grid/api/hub", "{\"slotCounts\":{\"free\":2,\"total\":2}}");
+		String secondHub = startHub("/grid/api/hub", "{\"slotCounts\":{\"free\":1,\"total\":2}}");
+		List<String> hubUrls = Arrays.asList(firstHub, secondHub);
+
+		Assert.assertEquals(GridHubRouter.INSTANCE.rankHubs(hubUrls).get(0), firstHub);
+		GridHubRouter.INSTANCE.sessionStarted(firstHub);
+		GridHubRouter.INSTANCE.sessionStarted(firstHub);
+		Assert.assertEquals(GridHubRouter.INSTANCE.rankHubs(hubUrls).get(0), secondHub);
+		GridHubRouter.INSTANCE.sessionFailed(secondHub);
+		Assert.assertEquals(GridHubRouter.INSTANCE.rankHubs(hubUrls).get(0), firstHub);
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void stopHubs() {
+		for (HttpServer hub : this.hubs) {
+			hub.stop(0);
+		}
+		GridHubRouter.INSTANCE.shutdown();
+	}
+
+	/**
+	 * Start a stub hub answering a single path.
+	 *
+	 * @param path
+	 *            path to answer
+	 * @param answer
+	 *            JSON to answer with
+	 * @return URL of the stub hub
+	 * @throws IOException
+	 *             if the stub cannot be started
+	 */
+	private String startHub(final String path, final String answer) throws IOException {
+		HttpServer hub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		hub.createContext(path, new HttpHandler() {
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException {
+				byte[] body = answer.getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, body.length);
+				OutputStream stream = exchange.getResponseBody();
+				stream.write(body);
+				stream.close();
+			}
+		});
+		hub.start();
+		this.hubs.add(hub);
+		return "http://localhost:" + hub.getAddress().getPort() + "/wd/hub";
+	}
+
+	/**
+	 * @return port nobody listens on
+	 * @throws IOException
+	 *             if no port can be found
+	 */
+	private static int unusedPort() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.ab.selenium.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Conversion of the state returned by the snapshot script, and the script itself on a fixture page.
+ */
+public class ElementSnapshotTest {
+
+	@Test
+	public void testStateFromScriptResult() {
+		Map<String, Object> attributes = new LinkedHashMap<String, Object>();
+		attributes.put("value", "42");
+		attributes.put("title", null);
+		Map<String, Object> styles = new HashMap<String, Object>();
+		styles.put("color", "rgb(0, 0, 0)");
+		Map<String, Object> state = new HashMap<String, Object>();
+		state.put("tagName", "input");
+		state.put("text", "");
+		state.put("displayed", Boolean.TRUE);
+		state.put("enabled", Boolean.FALSE);
+		state.put("selected", Boolean.FALSE);
+		state.put("x", Long.valueOf(10));
+		state.put("y", Double.valueOf(20.0));
+		state.put("width", Long.valueOf(100));
+		state.put("height", Long.valueOf(30));
+		state.put("attributes", attributes);
+		state.put("styles", styles);
+
+		ElementSnapshot snapshot = new ElementSnapshot(state);
+		attributes.put("value", "changed");
+
+		Assert.assertEquals(snapshot.getTagName(), "input");
+		Assert.assertTrue(snapshot.isDisplayed());
+		Assert.assertFalse(snapshot.isEnabled());
+		Rectangle rect = snapshot.getRect();
+		Assert.assertEquals(Arrays.asList(rect.x, rect.y, rect.width, rect.height), Arrays.asList(10, 20, 100, 30));
+		Assert.assertEquals(snapshot.getAttribute("value"), "42");
+		Assert.assertNull(snapshot.getAttribute("title"));
+		Assert.assertEquals(snapshot.getCssValue("color"), "rgb(0, 0, 0)");
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testImmutable() {
+		new ElementSnapshot(new HashMap<String, Object>()).getAttributes().put("value", "42");
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testAttributeNotRequested() {
+		new ElementSnapshot(new HashMap<String, Object>()).getAttribute("value");
+	}
+
+	@Test
+	public void testBooleanAttributesLikeWebDriver() {
+		HtmlUnitDriver driver = new HtmlUnitDriver(true);
+		try {
+			driver.get(ElementSnapshotTest.class.getResource("/pages/snapshot.html").toString());
+
+			ElementSnapshot name = new RenewableWebElement(driver, By.id("name")).snapshot(
+					Arrays.asList("value", "disabled", "checked"), Arrays.asList("color"));
+			ElementSnapshot agree = new RenewableWebElement(driver, By.id("agree")).snapshot("checked", "title");
+			ElementSnapshot readonly = new RenewableWebElement(driver, By.id("readonly")).snapshot("readonly");
+
+			Assert.assertEquals(name.getAttribute("value"), "Smith");
+			Assert.assertEquals(name.getAttribute("disabled"), "true");
+			Assert.assertNull(name.getAttribute("checked"));
+			Assert.assertFalse(name.isEnabled());
+			Assert.assertEquals(name.getCssValue("color"), "rgb(255, 0, 0)");
+			Assert.assertNull(agree.getAttribute("checked"));
+			Assert.assertEquals(agree.getAttribute("title"), "Agree");
+			Assert.assertEquals(readonly.getAttribute("readonly"), "true");
+		} finally {
+			driver.quit();
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.ab.selenium.util;
+
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * CSS selectors derived by {@code locatorOf.js} for elements without search term, on a fixture page.
+ */
+public class RenewableWebElementTest {
+	/** Browser displaying the fixture page. */
+	private HtmlUnitDriver driver;
+
+	@BeforeClass
+	public void openFixture() {
+		this.driver = new HtmlUnitDriver(true);
+		this.driver.get(RenewableWebElementTest.class.getResource("/pages/locators.html").toString());
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void quit() {
+		this.driver.quit();
+	}
+
+	@Test
+	public void testEveryLocatorFindsOnlyItsElement() {
+		List<WebElement> elements = new RenewableWebElement(this.driver, By.tagName("body")).findElements(By
+				.cssSelector("*"));
+		Assert.assertTrue(elements.size() > 10);
+		for (WebElement element : elements) {
+			By locator = ((RenewableWebElement) element).getSearchTerm();
+			List<WebElement> found = this.driver.findElements(locator);
+			Assert.assertEquals(found.size(), 1, locator.toString());
+			Assert.assertEquals(found.get(0), ((RenewableWebElement) element).getWebElement(), locator.toString());
+		}
+	}
+
+	@Test
+	public void testIdAndDataAttributesPreferred() {
+		Assert.assertEquals(locatorOf(By.name("email")), "#email");
+		Assert.assertEquals(locatorOf(By.name("password")), "[data-testid=\"password-field\"]");
+		Assert.assertEquals(locatorOf(By.name("remember")), "input[data-section=\"login\"]");
+		Assert.assertEquals(locatorOf(By.name("submit")), "input[name=\"submit\"]");
+	}
+
+	@Test
+	public void testPositionOnlyWhereNothingElseIdentifies() {
+		Assert.assertEquals(locatorOf(By.cssSelector("#second li:nth-of-type(3)")), "#second > ul > li:nth-of-type(3)");
+		// ids used twice are not unique
+		Assert.assertEquals(locatorOf(By.xpath("//span[2]")), "span:nth-of-type(2)");
+	}
+
+	@Test
+	public void testLocatorRememberedOnElement() {
+		WebElement element = this.driver.findElement(By.name("password"));
+		new RenewableWebElement(this.driver, element);
+		Assert.assertEquals(this.driver.executeScript("return arguments[0].__seleniumLocator;", element),
+				"[data-testid=\"password-field\"]");
+	}
+
+	@Test(expectedExceptions = WebDriverException.class, timeOut = 5000L)
+	public void testDetachedElementFailsAtOnce() {
+		WebElement detached = (WebElement) this.driver.executeScript("return document.createElement('div');");
+		new RenewableWebElement(this.driver, detached);
+	}
+
+	/**
+	 * @param by
+	 *            how to find the element on the fixture page
+	 * @return the CSS selector derived for the element
+	 */
+	private String locatorOf(final By by) {
+		By locator = new RenewableWebElement(this.driver, this.driver.findElement(by)).getSearchTerm();
+		Assert.assertTrue(locator instanceof By.ByCssSelector, locator.toString());
+		return locator.toString().substring("By.cssSelector: ".length());
+	}
+}
@@ -0,0 +1,79 @@
+package com.ab.selenium.util;
+
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Cropping of elements and reuse of frames.
+ */
+public class ScreenshotFrameTest {
+
+	@Test
+	public void testCropClampedToFrame() {
+		ScreenshotFrame frame = new ScreenshotFrame(image(100, 400), state("doc:1", 0, 200));
+
+		BufferedImage part = frame.crop(new Point(90, 350), new Dimension(20, 100));
+
+		Assert.assertEquals(part.getWidth(), 10);
+		Assert.assertEquals(part.getHeight(), 50);
+		Assert.assertNull(frame.crop(new Point(100, 0), new Dimension(10, 10)));
+	}
+
+	@Test
+	public void testViewportScreenshotShiftedByScrolling() {
+		BufferedImage viewport = image(100, 200);
+		viewport.setRGB(5, 10, 0xff0000);
+		ScreenshotFrame frame = new ScreenshotFrame(viewport, state("doc:1", 0, 300));
+
+		BufferedImage part = frame.crop(new Point(5, 310), new Dimension(1, 1));
+
+		Assert.assertEquals(part.getRGB(0, 0) & 0xffffff, 0xff0000);
+	}
+
+	@Test
+	public void testReusedWhilePageUnchanged() {
+		ScreenshotFrame frame = new ScreenshotFrame(image(100, 200), state("doc:1", 0, 0));
+
+		Assert.assertTrue(frame.shows(state("doc:1", 0, 0)));
+		Assert.assertFalse(frame.shows(state("doc:2", 0, 0)));
+		Assert.assertFalse(frame.shows(state("doc:1", 0, 50)));
+		Assert.assertFalse(frame.shows(null));
+		Assert.assertFalse(new ScreenshotFrame(image(100, 200), state(null, 0, 0)).shows(state(null, 0, 0)));
+	}
+
+	/**
+	 * @param width
+	 *            width of the image
+	 * @param height
+	 *            height of the image
+	 * @return black image
+	 */
+	private static BufferedImage image(final int width, final int height) {
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+	}
+
+	/**
+	 * @param token
+	 *            document and its version
+	 * @param scrollX
+	 *            horizontal scroll position
+	 * @param scrollY
+	 *            vertical scroll position
+	 * @return state of a page with a viewport of 100x200 as returned by {@code frameState.js}
+	 */
+	private static Map<String, Object> state(final String token, final long scrollX, final long scrollY) {
+		Map<String, Object> state = new HashMap<String, Object>();
+		state.put("token", token);
+		state.put("scrollX", Long.valueOf(scrollX));
+		state.put("scrollY", Long.valueOf(scrollY));
+		state.put("viewportWidth", Long.valueOf(100));
+		state.put("viewportHeight", Long.valueOf(200));
+		return state;
+	}
+}
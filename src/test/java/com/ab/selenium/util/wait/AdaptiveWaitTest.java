@@ -0,0 +1,156 @@
+package com.ab.selenium.util.wait;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ab.selenium.test.ExecutionContext;
+
+/**
+ * Polling schedule of the adaptive wait, without a browser.
+ */
+public class AdaptiveWaitTest {
+	@Test
+	public void testBackoffIsCappedAndJittered() {
+		ExponentialBackoff backoff = new ExponentialBackoff(50L, 2.0, 400L, 0.2);
+		Assert.assertTrue(backoff.getInterval(1) <= 50L && backoff.getInterval(1) >= 40L);
+		Assert.assertTrue(backoff.getInterval(3) <= 200L && backoff.getInterval(3) >= 160L);
+		Assert.assertTrue(backoff.getInterval(30) <= 400L && backoff.getInterval(30) >= 320L);
+		Assert.assertEquals(ExponentialBackoff.fixed(500L).getInterval(7), 500L);
+	}
+
+	@Test
+	public void testFulfilledConditionCountsPolls() {
+		AdaptiveWait wait = new AdaptiveWait(null, 5000L).ignoring(NotFoundException.class);
+		String value = wait.until(new ExpectedCondition<String>() {
+			private int calls;
+
+			@Override
+			public String apply(final WebDriver driver) {
+				this.calls++;
+				if (this.calls == 1) {
+					throw new NotFoundException("not yet");
+				}
+				return this.calls < 4 ? null : "found";
+			}
+		});
+		Assert.assertEquals(value, "found");
+		Assert.assertEquals(wait.getPolls(), 4);
+		// 50 + 100 + 200 ms at most
+		Assert.assertTrue(wait.getElapsed() < 1000L, "elapsed " + wait.getElapsed());
+	}
+
+	@Test
+	public void testConditionProvidesItsOwnStrategy() {
+		AdaptiveWait wait = new AdaptiveWait(null, 300L);
+		try {
+			wait.until(new IPolledCondition<Boolean>() {
+				@Override
+				public Boolean apply(final WebDriver driver) {
+					return Boolean.FALSE;
+				}
+
+				@Override
+				public IPollingStrategy getPollingStrategy() {
+					return ExponentialBackoff.fixed(100L);
+				}
+			});
+			Assert.fail("Timeout expected.");
+		} catch (TimeoutException e) {
+			Assert.assertTrue(wait.getPolls() >= 3 && wait.getPolls() <= 5, "polls " + wait.getPolls());
+		}
+	}
+
+	@Test
+	public void testNestedWaitsShareTheOuterDeadline() {
+		final AdaptiveWait innerWait = new AdaptiveWait(null, 10000L).ignoring(TimeoutException.class);
+		AdaptiveWait outerWait = new AdaptiveWait(null, 300L).ignoring(TimeoutException.class);
+		try {
+			outerWait.until(new ExpectedCondition<Boolean>() {
+				@Override
+				public Boolean apply(final WebDriver driver) {
+					return innerWait.until(new ExpectedCondition<Boolean>() {
+						@Override
+						public Boolean apply(final WebDriver innerDriver) {
+							return Boolean.FALSE;
+						}
+					});
+				}
+			});
+			Assert.fail("Timeout expected.");
+		} catch (TimeoutException e) {
+			Assert.assertTrue(outerWait.getElapsed() < 2000L, "elapsed " + outerWait.getElapsed());
+			Assert.assertNull(Deadline.current());
+		}
+	}
+
+	@Test
+	public void testAsyncWaitsOverlap() throws InterruptedException {
+		final long start = System.currentTimeMillis();
+		ExpectedCondition<Boolean> afterHalfASecond = new ExpectedCondition<Boolean>() {
+			@Override
+			public Boolean apply(final WebDriver driver) {
+				return Boolean.valueOf(System.currentTimeMillis() - start >= 500L);
+			}
+		};
+		CompletableFuture<Boolean> first = AsyncWait.INSTANCE.until(null, afterHalfASecond, 5000L,
+				ExponentialBackoff.DEFAULT);
+		CompletableFuture<Boolean> second = AsyncWait.INSTANCE.until(null, afterHalfASecond, 5000L,
+				ExponentialBackoff.DEFAULT);
+		CompletableFuture<Boolean> never = AsyncWait.INSTANCE.until(null, new ExpectedCondition<Boolean>() {
+			@Override
+			public Boolean apply(final WebDriver driver) {
+				return Boolean.FALSE;
+			}
+		}, 200L, ExponentialBackoff.DEFAULT);
+
+		CompletableFuture.allOf(first, second).join();
+		Assert.assertTrue(System.currentTimeMillis() - start < 1500L);
+		try {
+			never.get();
+			Assert.fail("Timeout expected.");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof TimeoutException, String.valueOf(e.getCause()));
+		}
+	}
+
+	@Test
+	public void testAsyncWaitPollsWithCallersContext() {
+		final ExecutionContext context = ExecutionContext.current();
+		CompletableFuture<ExecutionContext> polled = AsyncWait.INSTANCE.until(null,
+				new ExpectedCondition<ExecutionContext>() {
+					@Override
+					public ExecutionContext apply(final WebDriver driver) {
+						return ExecutionContext.current();
+					}
+				}, 5000L, ExponentialBackoff.DEFAULT);
+		Assert.assertSame(polled.join(), context);
+	}
+
+	@Test
+	public void testAsyncWaitRejectsNestedWaits() throws InterruptedException {
+		CompletableFuture<Boolean> polled = AsyncWait.INSTANCE.until(null, new ExpectedCondition<Boolean>() {
+			@Override
+			public Boolean apply(final WebDriver driver) {
+				return new AdaptiveWait(null, 5000L).until(new ExpectedCondition<Boolean>() {
+					@Override
+					public Boolean apply(final WebDriver innerDriver) {
+						return Boolean.TRUE;
+					}
+				});
+			}
+		}, 5000L, ExponentialBackoff.DEFAULT);
+		try {
+			polled.get();
+			Assert.fail("nested wait accepted");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException, String.valueOf(e.getCause()));
+		}
+	}
+}
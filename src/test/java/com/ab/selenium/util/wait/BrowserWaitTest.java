@@ -0,0 +1,62 @@
+package com.ab.selenium.util.wait;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Single and batched waits within the browser, sharing one script, on a fixture page.
+ */
+public class BrowserWaitTest {
+	/** Driver displaying the fixture page. */
+	private HtmlUnitDriver driver;
+
+	@BeforeClass
+	public void openPage() {
+		this.driver = new HtmlUnitDriver(true);
+		this.driver.get(getClass().getResource("/pages/snapshot.html").toString());
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void closePage() {
+		this.driver.quit();
+	}
+
+	@Test
+	public void testSingleElementIsTheCaseOfOneFinder() {
+		WebElement element = BrowserWait.waitForElement(this.driver, By.id("agree"), 2000L);
+		Assert.assertEquals(element.getAttribute("title"), "Agree");
+		Assert.assertEquals(BrowserWait.waitForText(this.driver, By.tagName("title"), "Snapshot", 2000L).getTagName(),
+				"title");
+	}
+
+	@Test
+	public void testSeveralElements() {
+		List<WebElement> all = BrowserWait.waitForAllElements(this.driver, 2000L, By.id("name"), By.id("agree"));
+		Assert.assertEquals(Arrays.asList(all.get(0).getAttribute("id"), all.get(1).getAttribute("id")),
+				Arrays.asList("name", "agree"));
+		List<WebElement> any = BrowserWait.waitForAnyElement(this.driver, 2000L, By.id("missing"), By.id("agree"));
+		Assert.assertNull(any.get(0));
+		Assert.assertEquals(any.get(1).getAttribute("id"), "agree");
+	}
+
+	@Test
+	public void testWrongTextTimesOut() {
+		long start = System.currentTimeMillis();
+		try {
+			BrowserWait.waitForText(this.driver, By.id("agree"), "Disagree", 500L);
+			Assert.fail("Timeout expected.");
+		} catch (TimeoutException e) {
+			Assert.assertTrue(e.getMessage().contains("[Disagree]"), e.getMessage());
+		}
+		Assert.assertTrue(System.currentTimeMillis() - start < 5000L);
+	}
+}
@@ -0,0 +1,45 @@
+package com.ab.selenium.util.wait;
+
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Settling of a fixture page with timers, detected by the readiness script.
+ */
+public class PageReadinessDetectorTest {
+	/** Detector with a short quiet period. */
+	private static final PageReadinessDetector DETECTOR = PageReadinessDetector.DEFAULT.withQuietPeriod(200L);
+
+	/** Driver displaying the fixture page. */
+	private HtmlUnitDriver driver;
+
+	@BeforeMethod
+	public void openPage() {
+		this.driver = new HtmlUnitDriver(true);
+		this.driver.get(getClass().getResource("/pages/readiness.html").toString());
+		// installs the hooks, timers are counted from now on
+		DETECTOR.waitUntilReady(this.driver, 5000L);
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void closePage() {
+		this.driver.quit();
+	}
+
+	@Test
+	public void testPendingTimeoutIsWaitedFor() {
+		this.driver.executeScript("startTask(600);");
+		DETECTOR.waitUntilReady(this.driver, 5000L);
+		Assert.assertEquals(this.driver.getTitle(), "Done");
+	}
+
+	@Test
+	public void testSelfRearmingTimeoutsSettle() {
+		this.driver.executeScript("startTicker(); startPolling();");
+		DETECTOR.waitUntilReady(this.driver, 3000L);
+		Assert.assertTrue(((Number) this.driver.executeScript("return ticks;")).longValue() > 0L);
+	}
+}
@@ -0,0 +1,34 @@
+package fixture;
+
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindBy;
+
+import com.ab.selenium.pages.AbstractPage;
+
+/**
+ * Page with fields mapping to the same constant name and without a public constructor taking the parent page.
+ */
+public class ClashingPage extends AbstractPage<AbstractPage> {
+	@FindBy(id = "user")
+	WebElement userName;
+
+	@FindBy(name = "user")
+	WebElement user_name;
+
+	protected ClashingPage(final AbstractPage parentPage) {
+		super(parentPage);
+	}
+
+	@Override
+	public void waitForLoad() {
+	}
+
+	@Override
+	public boolean isOnPage() {
+		return this.userName != null && this.user_name != null;
+	}
+
+	@Override
+	public void resetActiveIFrame() {
+	}
+}
@@ -0,0 +1,47 @@
+package fixture;
+
+import java.util.List;
+
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.CacheLookup;
+import org.openqa.selenium.support.FindAll;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.FindBys;
+import org.openqa.selenium.support.How;
+
+import com.ab.selenium.pages.AbstractPage;
+
+/**
+ * Page with every kind of element field the processor supports.
+ */
+public class LoginPage extends AbstractPage<AbstractPage> {
+	@FindBy(id = "user")
+	WebElement userName;
+	@FindBy(how = How.XPATH, using = "//a[@class=\"help\"]")
+	@CacheLookup
+	public List<WebElement> helpLinks;
+	@FindBys({ @FindBy(css = "form"), @FindBy(tagName = "button") })
+	protected WebElement submit;
+	@FindAll({ @FindBy(name = "remember"), @FindBy(className = "remember") })
+	List<WebElement> remember;
+	WebElement password;
+	/** Not an element field. */
+	String title;
+
+	public LoginPage(final AbstractPage parentPage) {
+		super(parentPage);
+	}
+
+	@Override
+	public void waitForLoad() {
+	}
+
+	@Override
+	public boolean isOnPage() {
+		return true;
+	}
+
+	@Override
+	public void resetActiveIFrame() {
+	}
+}
@@ -0,0 +1,29 @@
+package fixture;
+
+import org.openqa.selenium.WebElement;
+
+import com.ab.selenium.pages.AbstractPage;
+
+/**
+ * Page the generated binder could not assign, left to reflection.
+ */
+public class PrivatePage extends AbstractPage<AbstractPage> {
+	private WebElement hidden;
+
+	public PrivatePage(final AbstractPage parentPage) {
+		super(parentPage);
+	}
+
+	@Override
+	public void waitForLoad() {
+	}
+
+	@Override
+	public boolean isOnPage() {
+		return this.hidden != null;
+	}
+
+	@Override
+	public void resetActiveIFrame() {
+	}
+}